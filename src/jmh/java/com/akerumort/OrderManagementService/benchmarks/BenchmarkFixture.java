@@ -0,0 +1,161 @@
+package com.akerumort.OrderManagementService.benchmarks;
+
+import com.akerumort.OrderManagementService.dto.OrderCreateDTO;
+import com.akerumort.OrderManagementService.entities.Customer;
+import com.akerumort.OrderManagementService.entities.Order;
+import com.akerumort.OrderManagementService.entities.Product;
+import com.akerumort.OrderManagementService.mappers.OrderMapper;
+import com.akerumort.OrderManagementService.repositories.CustomerRepository;
+import com.akerumort.OrderManagementService.repositories.OrderRepository;
+import com.akerumort.OrderManagementService.repositories.ProductRepository;
+import com.akerumort.OrderManagementService.services.CustomerService;
+import com.akerumort.OrderManagementService.services.OrderEventService;
+import com.akerumort.OrderManagementService.services.OrderService;
+import com.akerumort.OrderManagementService.services.OrderStatsService;
+import com.akerumort.OrderManagementService.services.ProductService;
+import com.akerumort.OrderManagementService.services.ReportCacheService;
+import com.akerumort.OrderManagementService.services.ReportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// wires the services and the generated mapper by hand on top of the in-memory repositories
+public class BenchmarkFixture {
+
+    public final Map<Long, Customer> customers = new HashMap<>();
+    public final Map<Long, Product> products = new HashMap<>();
+    public final List<Order> orders = new ArrayList<>();
+
+    public final OrderService orderService;
+    public final ReportService reportService;
+    public final OrderMapper orderMapper;
+
+    public BenchmarkFixture(int customerCount, int productCount, int orderCount, int productsPerOrder) {
+        Random random = new Random(42);
+        for (long id = 1; id <= customerCount; id++) {
+            Customer customer = new Customer();
+            customer.setId(id);
+            customer.setVersion(0L);
+            customer.setName("Customer " + id);
+            customer.setEmail("customer" + id + "@example.com");
+            customers.put(id, customer);
+        }
+        for (long id = 1; id <= productCount; id++) {
+            Product product = new Product();
+            product.setId(id);
+            product.setVersion(0L);
+            product.setName("Product " + id);
+            product.setDescription("Description of product " + id);
+            product.setPrice(BigDecimal.valueOf(100 + random.nextInt(10000), 2));
+            products.put(id, product);
+        }
+        for (long id = 1; id <= orderCount; id++) {
+            orders.add(newOrder(id, random, productsPerOrder));
+        }
+
+        ProductRepository productRepository = InMemoryRepositories.products(products);
+        CustomerRepository customerRepository = InMemoryRepositories.customers(customers);
+        OrderRepository orderRepository = InMemoryRepositories.orders(orders);
+
+        ProductService productService = new ProductService();
+        inject(productService, "productRepository", productRepository);
+        inject(productService, "cacheManager", new ConcurrentMapCacheManager("products"));
+
+        CustomerService customerService = new CustomerService();
+        inject(customerService, "customerRepository", customerRepository);
+        inject(customerService, "cacheManager", new ConcurrentMapCacheManager("customers"));
+
+        OrderStatsService orderStatsService = new OrderStatsService();
+        inject(orderStatsService, "orderRepository", orderRepository);
+
+        OrderEventService orderEventService = new OrderEventService();
+        inject(orderEventService, "orderEventRepository", InMemoryRepositories.orderEvents());
+        inject(orderEventService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        orderService = new OrderService();
+        inject(orderService, "orderRepository", orderRepository);
+        inject(orderService, "orderStatsService", orderStatsService);
+        inject(orderService, "orderEventService", orderEventService);
+        inject(orderService, "reportCacheService", new ReportCacheService());
+        inject(orderService, "meterRegistry", meterRegistry);
+        orderService.registerMeters();
+
+        reportService = new ReportService();
+        inject(reportService, "orderRepository", orderRepository);
+        inject(reportService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        inject(reportService, "reportBatchSize", 500);
+        inject(reportService, "excelRowWindow", 100);
+        inject(reportService, "meterRegistry", meterRegistry);
+        reportService.start();
+
+        orderMapper = newInstance("com.akerumort.OrderManagementService.mappers.OrderMapperImpl");
+        inject(orderMapper, "customerService", customerService);
+        inject(orderMapper, "productService", productService);
+    }
+
+    public Order newOrder(Long id, Random random, int productsPerOrder) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomer(customers.get(1L + random.nextInt(customers.size())));
+        List<Product> orderProducts = new ArrayList<>(productsPerOrder);
+        for (int i = 0; i < productsPerOrder; i++) {
+            orderProducts.add(products.get(1L + random.nextInt(products.size())));
+        }
+        order.setProducts(orderProducts);
+        order.setOrderDate(new Timestamp(System.currentTimeMillis()));
+        return order;
+    }
+
+    public OrderCreateDTO newOrderCreateDTO(Random random, int productsPerOrder) {
+        OrderCreateDTO orderCreateDTO = new OrderCreateDTO();
+        orderCreateDTO.setCustomerId(1L + random.nextInt(customers.size()));
+        List<Long> productIds = new ArrayList<>(productsPerOrder);
+        for (int i = 0; i < productsPerOrder; i++) {
+            productIds.add(1L + random.nextInt(products.size()));
+        }
+        orderCreateDTO.setProductIds(productIds);
+        return orderCreateDTO;
+    }
+
+    // sets every field with this name in the class hierarchy (the mapper has one in the generated subclass too)
+    static void inject(Object target, String fieldName, Object value) {
+        boolean injected = false;
+        for (Class<?> type = target.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.getName().equals(fieldName)) {
+                    field.setAccessible(true);
+                    try {
+                        field.set(target, value);
+                    } catch (IllegalAccessException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    injected = true;
+                }
+            }
+        }
+        if (!injected) {
+            throw new IllegalStateException("No field " + fieldName + " in " + target.getClass());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T newInstance(String className) {
+        try {
+            return (T) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.akerumort.OrderManagementService.benchmarks;
+
+import com.akerumort.OrderManagementService.entities.Order;
+import com.akerumort.OrderManagementService.entities.Product;
+import com.akerumort.OrderManagementService.services.ReportFormat;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Paragraph;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// baseline for ReportServiceBenchmark: the reports as they were rendered before streaming, the whole
+// document is built on heap and copied into a byte[] that the controller returned.
+// Compare both with the same orderCount and -prof gc (gc.alloc.rate.norm, gc.count), e.g.
+// -Djmh.args="ReportServiceBenchmark|BufferedReportBenchmark -p format=PDF -p partitions=1 -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BufferedReportBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int orderCount;
+
+    @Param({"PDF", "EXCEL"})
+    private ReportFormat format;
+
+    private BenchmarkFixture fixture;
+
+    @Setup
+    public void setUp() {
+        fixture = new BenchmarkFixture(1000, 1000, orderCount, 3);
+    }
+
+    @Benchmark
+    public void writeReport() throws IOException {
+        OutputStream.nullOutputStream().write(render());
+    }
+
+    // the byte[] is complete before the response gets its first byte
+    @Benchmark
+    public void firstByte() throws Exception {
+        FirstByteStream.run(out -> out.write(render()));
+    }
+
+    private byte[] render() throws IOException {
+        return switch (format) {
+            case PDF -> renderPdf(fixture.orders);
+            case EXCEL -> renderExcel(fixture.orders);
+            default -> throw new IllegalArgumentException(format + " had no buffered renderer");
+        };
+    }
+
+    private static byte[] renderPdf(List<Order> orders) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfWriter writer = new PdfWriter(out);
+        PdfDocument pdfDoc = new PdfDocument(writer);
+        Document document = new Document(pdfDoc);
+
+        document.add(new Paragraph("Order Report")
+                .setFont(PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD))
+                .setFontSize(18));
+
+        document.add(new Paragraph("Generated at: " + Timestamp.valueOf(LocalDateTime.now()))
+                .setFont(PdfFontFactory.createFont(StandardFonts.HELVETICA))
+                .setFontSize(12));
+
+        for (Order order : orders) {
+            document.add(new Paragraph("Order ID: " + order.getId()));
+            document.add(new Paragraph("Customer ID: " + order.getCustomer().getId()));
+            document.add(new Paragraph("Product IDs: " + joinProductIds(order)));
+            document.add(new Paragraph("Product Names: " + joinProductNames(order)));
+            document.add(new Paragraph("Order Date: " + order.getOrderDate()));
+            document.add(new Paragraph(" "));
+        }
+
+        document.close();
+        return out.toByteArray();
+    }
+
+    private static byte[] renderExcel(List<Order> orders) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Workbook workbook = new XSSFWorkbook();
+        Sheet sheet = workbook.createSheet("Orders Report");
+
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("Order ID");
+        header.createCell(1).setCellValue("Customer ID");
+        header.createCell(2).setCellValue("Product IDs");
+        header.createCell(3).setCellValue("Product Names");
+        header.createCell(4).setCellValue("Order Date");
+
+        int rowIdx = 1;
+        for (Order order : orders) {
+            Row row = sheet.createRow(rowIdx++);
+            row.createCell(0).setCellValue(order.getId());
+            row.createCell(1).setCellValue(order.getCustomer().getId());
+            row.createCell(2).setCellValue(joinProductIds(order));
+            row.createCell(3).setCellValue(joinProductNames(order));
+            row.createCell(4).setCellValue(order.getOrderDate().toString());
+        }
+
+        workbook.write(out);
+        workbook.close();
+        return out.toByteArray();
+    }
+
+    private static String joinProductIds(Order order) {
+        return order.getProducts().stream()
+                .map(product -> String.valueOf(product.getId()))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String joinProductNames(Order order) {
+        return order.getProducts().stream()
+                .map(Product::getName)
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,51 @@
+package com.akerumort.OrderManagementService.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// stands in for the response: the first write is the moment the client would see a byte, the render is
+// cut off there so the benchmark times exactly that
+public class FirstByteStream extends OutputStream {
+
+    private boolean reached;
+
+    public boolean isReached() {
+        return reached;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        firstByte();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len > 0) {
+            firstByte();
+        }
+    }
+
+    private void firstByte() throws IOException {
+        reached = true;
+        throw new IOException("first byte written");
+    }
+
+    // renderers wrap the write failure in their own exceptions, anything thrown before the first byte is real
+    public static void run(Render render) throws Exception {
+        FirstByteStream out = new FirstByteStream();
+        try {
+            render.writeTo(out);
+        } catch (Exception e) {
+            if (!out.isReached()) {
+                throw e;
+            }
+        }
+        if (!out.isReached()) {
+            throw new IllegalStateException("the report wrote nothing");
+        }
+    }
+
+    public interface Render {
+        void writeTo(OutputStream out) throws Exception;
+    }
+}
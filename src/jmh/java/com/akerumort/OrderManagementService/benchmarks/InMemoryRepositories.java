@@ -0,0 +1,122 @@
+package com.akerumort.OrderManagementService.benchmarks;
+
+import com.akerumort.OrderManagementService.entities.Customer;
+import com.akerumort.OrderManagementService.entities.Order;
+import com.akerumort.OrderManagementService.entities.Product;
+import com.akerumort.OrderManagementService.repositories.CustomerRepository;
+import com.akerumort.OrderManagementService.repositories.OrderEventRepository;
+import com.akerumort.OrderManagementService.repositories.OrderRepository;
+import com.akerumort.OrderManagementService.repositories.ProductRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// map-backed stand-ins for the spring data repositories, only the methods used on the benchmarked paths exist
+public final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    public static ProductRepository products(Map<Long, Product> products) {
+        return proxy(ProductRepository.class, (name, args) -> switch (name) {
+            case "findById" -> Optional.ofNullable(products.get((Long) args[0]));
+            case "findAllById" -> findAll(products, (Iterable<?>) args[0]);
+            case "findAllIds" -> new ArrayList<>(products.keySet());
+            default -> throw new UnsupportedOperationException(name);
+        });
+    }
+
+    public static CustomerRepository customers(Map<Long, Customer> customers) {
+        return proxy(CustomerRepository.class, (name, args) -> switch (name) {
+            case "findById" -> Optional.ofNullable(customers.get((Long) args[0]));
+            case "findAllById" -> findAll(customers, (Iterable<?>) args[0]);
+            case "findAllIds" -> new ArrayList<>(customers.keySet());
+            default -> throw new UnsupportedOperationException(name);
+        });
+    }
+
+    // save only hands out ids, orders are not kept so long runs don't grow the heap
+    @SuppressWarnings("unchecked")
+    public static OrderRepository orders(List<Order> scanOrders) {
+        AtomicLong sequence = new AtomicLong();
+        return proxy(OrderRepository.class, (name, args) -> switch (name) {
+            case "save" -> assignId((Order) args[0], sequence);
+            case "saveAll" -> {
+                List<Order> saved = new ArrayList<>();
+                for (Object order : (Iterable<?>) args[0]) {
+                    saved.add(assignId((Order) order, sequence));
+                }
+                yield saved;
+            }
+            case "findById" -> Optional.empty();
+            case "scanAll" -> {
+                scan(scanOrders, 0, scanOrders.size(), (Integer) args[0], (Consumer<List<Order>>) args[1]);
+                yield null;
+            }
+            // ids are 1..n in list order
+            case "scanRange" -> {
+                int from = (int) Math.max(0, (Long) args[0] - 1);
+                int to = (int) Math.min(scanOrders.size(), (Long) args[1] - 1);
+                scan(scanOrders, from, to, (Integer) args[2], (Consumer<List<Order>>) args[3]);
+                yield null;
+            }
+            case "findIdBounds" -> scanOrders.isEmpty() ? null : new long[]{1L, scanOrders.size()};
+            default -> throw new UnsupportedOperationException(name);
+        });
+    }
+
+    // events are dropped, the benchmarks only pay for building them
+    public static OrderEventRepository orderEvents() {
+        return proxy(OrderEventRepository.class, (name, args) -> switch (name) {
+            case "save", "saveAll" -> args[0];
+            default -> throw new UnsupportedOperationException(name);
+        });
+    }
+
+    private static void scan(List<Order> orders, int from, int to, int batchSize, Consumer<List<Order>> consumer) {
+        for (int start = from; start < to; start += batchSize) {
+            consumer.accept(orders.subList(start, Math.min(start + batchSize, to)));
+        }
+    }
+
+    private static Order assignId(Order order, AtomicLong sequence) {
+        if (order.getId() == null) {
+            order.setId(sequence.incrementAndGet());
+        }
+        return order;
+    }
+
+    private static <T> List<T> findAll(Map<Long, T> entities, Iterable<?> ids) {
+        List<T> found = new ArrayList<>();
+        for (Object id : ids) {
+            T entity = entities.get((Long) id);
+            if (entity != null) {
+                found.add(entity);
+            }
+        }
+        return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> type.getSimpleName() + " (in memory)";
+                };
+            }
+            return handler.handle(method.getName(), args);
+        });
+    }
+
+    private interface Handler {
+        Object handle(String name, Object[] args);
+    }
+}
@@ -0,0 +1,57 @@
+package com.akerumort.OrderManagementService.benchmarks;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// async loggers as configured in log4j2.component.properties; a full ring buffer blocks here instead of
+// discarding, so the appender's throughput stays part of the result. Run with -prof gc for allocations.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.asyncQueueFullPolicy=Default")
+public class LoggingBenchmark {
+    private static final Logger logger = LogManager.getLogger(LoggingBenchmark.class);
+
+    private Long productId = 4242L;
+    private List<Long> productIds = List.of(1L, 2L, 3L);
+
+    // the old style: the message is built on the request thread for every call
+    @Benchmark
+    public void concatenatedInfo() {
+        logger.info("Fetched product by ID: " + productId);
+    }
+
+    @Benchmark
+    public void parameterizedInfo() {
+        logger.info("Fetched product by ID: {}", productId);
+    }
+
+    @Benchmark
+    public void concatenatedDisabledDebug() {
+        logger.debug("Order products: " + productIds.stream()
+                .map(id -> "ID: " + id)
+                .collect(Collectors.joining("; ")));
+    }
+
+    @Benchmark
+    public void supplierDisabledDebug() {
+        logger.debug("Order products: {}", () -> productIds.stream()
+                .map(id -> "ID: " + id)
+                .collect(Collectors.joining("; ")));
+    }
+}
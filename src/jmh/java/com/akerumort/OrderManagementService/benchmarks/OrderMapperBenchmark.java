@@ -0,0 +1,52 @@
+package com.akerumort.OrderManagementService.benchmarks;
+
+import com.akerumort.OrderManagementService.dto.OrderCreateDTO;
+import com.akerumort.OrderManagementService.dto.OrderDTO;
+import com.akerumort.OrderManagementService.entities.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderMapperBenchmark {
+
+    @Param({"3", "20"})
+    private int productsPerOrder;
+
+    private BenchmarkFixture fixture;
+    private Order order;
+    private OrderCreateDTO orderCreateDTO;
+
+    @Setup
+    public void setUp() {
+        fixture = new BenchmarkFixture(1000, 1000, 1, productsPerOrder);
+        order = fixture.orders.get(0);
+        orderCreateDTO = fixture.newOrderCreateDTO(new Random(42), productsPerOrder);
+    }
+
+    @Benchmark
+    public OrderDTO toDTO() {
+        return fixture.orderMapper.toDTO(order);
+    }
+
+    @Benchmark
+    public Order toEntity() {
+        return fixture.orderMapper.toEntity(orderCreateDTO);
+    }
+}
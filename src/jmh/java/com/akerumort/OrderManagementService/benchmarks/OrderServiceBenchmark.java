@@ -0,0 +1,75 @@
+package com.akerumort.OrderManagementService.benchmarks;
+
+import com.akerumort.OrderManagementService.dto.OrderBatchResultDTO;
+import com.akerumort.OrderManagementService.entities.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    @Param({"1000"})
+    private int orderCount;
+
+    // orders created per invocation by saveOrderEach and saveOrders
+    @Param({"10", "100"})
+    private int batchSize;
+
+    private BenchmarkFixture fixture;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        fixture = new BenchmarkFixture(1000, 1000, orderCount, 3);
+        random = new Random(42);
+    }
+
+    // validateOrder runs as part of saveOrder, the repository save itself is a no-op
+    @Benchmark
+    public Order saveOrder() {
+        Order order = fixture.newOrder(null, random, 3);
+        return fixture.orderService.saveOrder(order);
+    }
+
+    // the same orders once through saveOrder each and once as one saveOrders call
+    @Benchmark
+    public List<Order> saveOrderEach() {
+        List<Order> saved = new ArrayList<>(batchSize);
+        for (Order order : newOrders()) {
+            saved.add(fixture.orderService.saveOrder(order));
+        }
+        return saved;
+    }
+
+    @Benchmark
+    public List<OrderBatchResultDTO> saveOrders() {
+        return fixture.orderService.saveOrders(newOrders());
+    }
+
+    private List<Order> newOrders() {
+        List<Order> orders = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            orders.add(fixture.newOrder(null, random, 3));
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,91 @@
+package com.akerumort.OrderManagementService.benchmarks;
+
+import com.akerumort.OrderManagementService.services.ReportFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+// heap use should stay flat as orderCount grows, run with -prof gc and compare gc.alloc.rate.norm against
+// BufferedReportBenchmark, the pre-streaming renderers
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReportServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int orderCount;
+
+    @Param({"TEXT", "CSV", "NDJSON", "PDF", "EXCEL"})
+    private ReportFormat format;
+
+    // 1 renders on the benchmark thread, more splits the orders into id ranges (PDF always stays sequential)
+    @Param({"1", "4"})
+    private int partitions;
+
+    private BenchmarkFixture fixture;
+
+    @Setup
+    public void setUp() {
+        fixture = new BenchmarkFixture(1000, 1000, orderCount, 3);
+        if (partitions > 1) {
+            BenchmarkFixture.inject(fixture.reportService, "partitions", partitions);
+            BenchmarkFixture.inject(fixture.reportService, "minRangeSize", 1L);
+            BenchmarkFixture.inject(fixture.reportService, "connectionPoolSize", partitions * 4);
+            BenchmarkFixture.inject(fixture.reportService, "transactionManager", new NoTransactionManager());
+            fixture.reportService.start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.reportService.stop();
+    }
+
+    @Benchmark
+    public void writeReport() throws IOException {
+        fixture.reportService.writeReport(format, OutputStream.nullOutputStream());
+    }
+
+    // time until the response would see its first byte; Excel only writes once the workbook is complete
+    @Benchmark
+    public void firstByte() throws Exception {
+        FirstByteStream.run(out -> fixture.reportService.writeReport(format, out));
+    }
+
+    // the in-memory repositories have no transactions to begin
+    private static class NoTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
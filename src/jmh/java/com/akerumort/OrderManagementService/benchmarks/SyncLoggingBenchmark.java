@@ -0,0 +1,8 @@
+package com.akerumort.OrderManagementService.benchmarks;
+
+import org.openjdk.jmh.annotations.Fork;
+
+// the same calls with the default synchronous loggers, for comparison with LoggingBenchmark
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.contextSelector=org.apache.logging.log4j.core.selector.ClassLoaderContextSelector")
+public class SyncLoggingBenchmark extends LoggingBenchmark {
+}
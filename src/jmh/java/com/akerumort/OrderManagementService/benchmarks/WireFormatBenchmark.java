@@ -0,0 +1,102 @@
+package com.akerumort.OrderManagementService.benchmarks;
+
+import com.akerumort.OrderManagementService.dto.CustomerDTO;
+import com.akerumort.OrderManagementService.dto.OrderDTO;
+import com.akerumort.OrderManagementService.dto.OrderFieldsDTO;
+import com.akerumort.OrderManagementService.dto.ProductDTO;
+import com.akerumort.OrderManagementService.entities.Order;
+import com.akerumort.OrderManagementService.entities.Product;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// serialization time of one GET /orders page per encoding; the payload size of each combination is
+// printed once in the setup, look for "payload:" in the run log
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"100"})
+    private int pageSize;
+
+    // FULL is the default response, IDS is fields=id,orderDate,customer.id,products.id
+    @Param({"FULL", "IDS"})
+    private String projection;
+
+    @Param({"JSON", "JSON_GZIP", "CBOR", "SMILE"})
+    private String encoding;
+
+    private List<OrderDTO> page;
+    private ObjectMapper objectMapper;
+    private boolean gzip;
+    private ByteArrayOutputStream buffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkFixture fixture = new BenchmarkFixture(1000, 1000, pageSize, 3);
+        page = new ArrayList<>(pageSize);
+        for (Order order : fixture.orders) {
+            page.add(projection.equals("FULL") ? fixture.orderMapper.toDTO(order) : toIdsDTO(order));
+        }
+
+        JsonFactory factory = switch (encoding) {
+            case "CBOR" -> new CBORFactory();
+            case "SMILE" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        objectMapper = new ObjectMapper(factory).findAndRegisterModules();
+        gzip = encoding.equals("JSON_GZIP");
+        buffer = new ByteArrayOutputStream(256 * 1024);
+
+        System.out.printf("%npayload: %s %s, %d orders: %d bytes%n", projection, encoding, pageSize, serialize());
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        buffer.reset();
+        OutputStream out = gzip ? new GZIPOutputStream(buffer) : buffer;
+        objectMapper.writeValue(out, page); // closes the gzip stream, which finishes it
+        return buffer.size();
+    }
+
+    private static OrderDTO toIdsDTO(Order order) {
+        OrderDTO orderDTO = new OrderFieldsDTO();
+        orderDTO.setId(order.getId());
+        orderDTO.setOrderDate(order.getOrderDate());
+        CustomerDTO customerDTO = new OrderFieldsDTO.Customer();
+        customerDTO.setId(order.getCustomer().getId());
+        orderDTO.setCustomer(customerDTO);
+        List<ProductDTO> products = new ArrayList<>(order.getProducts().size());
+        for (Product product : order.getProducts()) {
+            ProductDTO productDTO = new OrderFieldsDTO.Product();
+            productDTO.setId(product.getId());
+            products.add(productDTO);
+        }
+        orderDTO.setProducts(products);
+        return orderDTO;
+    }
+}
@@ -0,0 +1,68 @@
+package com.akerumort.OrderManagementService.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicLong;
+
+// polls the replica's replay lag; reads only go there after a check found it within max-lag
+public class ReplicaLagMonitor {
+    private static final Logger logger = LogManager.getLogger(ReplicaLagMonitor.class);
+
+    // 0 when everything received is replayed (an idle primary doesn't look like lag) and when the
+    // server is no standby at all, e.g. a second local instance used for testing
+    private static final String LAG_QUERY = "select case"
+            + " when not pg_is_in_recovery() then 0"
+            + " when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0"
+            + " else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000, 0)"
+            + " end::bigint";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLong lagMillis = new AtomicLong(-1);
+    private volatile boolean replicaUsable;
+
+    @Value("${app.datasource.replica.max-lag:10000}")
+    private long maxLag;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = new JdbcTemplate(replicaDataSource);
+        Gauge.builder("datasource.replica.lag", lagMillis, AtomicLong::get)
+                .description("Replica replay lag, -1 while the replica is unreachable")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval:5000}")
+    public void checkLag() {
+        boolean usable;
+        try {
+            Long lag = jdbcTemplate.queryForObject(LAG_QUERY, Long.class);
+            lagMillis.set(lag);
+            usable = lag <= maxLag;
+            if (!usable && replicaUsable) {
+                logger.warn("Replica is {} ms behind, read-only transactions use the primary", lag);
+            }
+        } catch (DataAccessException e) {
+            lagMillis.set(-1);
+            usable = false;
+            if (replicaUsable) {
+                logger.warn("Replica unreachable, read-only transactions use the primary", e);
+            }
+        }
+        if (usable && !replicaUsable) {
+            logger.info("Replica is within {} ms, read-only transactions use it", maxLag);
+        }
+        replicaUsable = usable;
+    }
+}
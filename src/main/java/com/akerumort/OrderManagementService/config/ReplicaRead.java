@@ -0,0 +1,13 @@
+package com.akerumort.OrderManagementService.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// read-only work that may see a slightly stale replica; only read-only transactions inside such a call
+// are routed there, the repositories' own read-only defaults stay on the primary
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaRead {
+}
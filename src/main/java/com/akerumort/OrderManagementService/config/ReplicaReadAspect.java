@@ -0,0 +1,21 @@
+package com.akerumort.OrderManagementService.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class ReplicaReadAspect {
+
+    @Around("@annotation(com.akerumort.OrderManagementService.config.ReplicaRead)")
+    public Object markReplicaRead(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean marked = ReplicaRoutingDataSource.markReplicaRead();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReplicaRoutingDataSource.restoreReplicaRead(marked);
+        }
+    }
+}
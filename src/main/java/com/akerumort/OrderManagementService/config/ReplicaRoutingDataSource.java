@@ -0,0 +1,61 @@
+package com.akerumort.OrderManagementService.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// read-only transactions within a @ReplicaRead call go to the replica while it keeps up, everything else to
+// the primary. Spring Data's repositories are read-only by default, so the flag alone would send write-path
+// lookups (the order before an update, idempotency replays) to a replica that may not have the row yet
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Boolean> replicaRead = new ThreadLocal<>();
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+    private final Counter primaryCounter;
+    private final Counter replicaCounter;
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor replicaLagMonitor, MeterRegistry meterRegistry) {
+        this.replicaLagMonitor = replicaLagMonitor;
+        this.primaryCounter = routeCounter(Route.PRIMARY, meterRegistry);
+        this.replicaCounter = routeCounter(Route.REPLICA, meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (Boolean.TRUE.equals(replicaRead.get())
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && replicaLagMonitor.isReplicaUsable()) {
+            replicaCounter.increment();
+            return Route.REPLICA;
+        }
+        primaryCounter.increment();
+        return Route.PRIMARY;
+    }
+
+    // returns whether the thread was already marked, to be passed back to restoreReplicaRead
+    public static boolean markReplicaRead() {
+        boolean marked = Boolean.TRUE.equals(replicaRead.get());
+        replicaRead.set(true);
+        return marked;
+    }
+
+    public static void restoreReplicaRead(boolean marked) {
+        if (!marked) {
+            replicaRead.remove();
+        }
+    }
+
+    private static Counter routeCounter(Route route, MeterRegistry meterRegistry) {
+        return Counter.builder("datasource.routing")
+                .description("Connections handed out per datasource")
+                .tag("route", route.name())
+                .register(meterRegistry);
+    }
+}
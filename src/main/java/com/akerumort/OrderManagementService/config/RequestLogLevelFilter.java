@@ -0,0 +1,43 @@
+package com.akerumort.OrderManagementService.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.ThreadContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+
+// raises the log level for a single request, picked up by the DynamicThresholdFilter in log4j2.xml
+@Component
+@ConditionalOnProperty(name = "app.logging.request-level.enabled", havingValue = "true")
+public class RequestLogLevelFilter extends OncePerRequestFilter {
+    static final String LOG_LEVEL_KEY = "logLevel";
+    private static final Set<String> LEVELS = Set.of("DEBUG", "TRACE");
+
+    @Value("${app.logging.request-level.header:X-Log-Level}")
+    private String header;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String level = request.getHeader(header);
+        if (level == null || !LEVELS.contains(level.toUpperCase(Locale.ROOT))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ThreadContext.put(LOG_LEVEL_KEY, level.toUpperCase(Locale.ROOT));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ThreadContext.remove(LOG_LEVEL_KEY);
+        }
+    }
+}
@@ -1,17 +1,22 @@
 package com.akerumort.OrderManagementService.controllers;
 
+import com.akerumort.OrderManagementService.dto.CursorPageDTO;
 import com.akerumort.OrderManagementService.dto.CustomerCreateDTO;
 import com.akerumort.OrderManagementService.dto.CustomerDTO;
 import com.akerumort.OrderManagementService.entities.Customer;
 import com.akerumort.OrderManagementService.mappers.CustomerMapper;
 import com.akerumort.OrderManagementService.services.CustomerService;
+import com.akerumort.OrderManagementService.utils.CursorUtil;
 import com.akerumort.OrderManagementService.utils.ValidationUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -26,6 +31,9 @@ public class CustomerController {
     @Autowired
     private CustomerMapper customerMapper;
 
+    @Value("${app.pagination.max-limit:1000}")
+    private int maxPageLimit;
+
     @GetMapping
     @Operation(summary = "Get all customers", description = "Get a list of all customers")
     public List<CustomerDTO> getAllCustomers(
@@ -39,13 +47,33 @@ public class CustomerController {
                 .collect(Collectors.toList());
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "Get customers by cursor", description = "Get customers in ID order, pass nextCursor of the previous page to continue")
+    public CursorPageDTO<CustomerDTO> getCustomersByCursor(
+            @Parameter(description = "Cursor returned by the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Page size", example = "100")
+            @RequestParam(defaultValue = "100") int limit) {
+        CursorUtil.validateLimit(limit, maxPageLimit);
+        List<Customer> rows = customerService.getCustomersAfter(CursorUtil.decode(after), limit);
+        return CursorUtil.toPage(rows, limit, Customer::getId, customerMapper::toDTO);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get customer by ID", description = "Get details of a specific customer by ID")
-    public CustomerDTO getCustomerById(
+    public ResponseEntity<CustomerDTO> getCustomerById(
             @Parameter(description = "Customer ID", required = true)
-            @PathVariable Long id) {
-        Customer customer = customerService.getCustomerById(id);
-        return customerMapper.toDTO(customer);
+            @PathVariable Long id,
+            WebRequest webRequest) {
+        // the ETag is the version read from the database, a matching If-None-Match skips loading, mapping and
+        // serialization; otherwise the customer usually comes from the near cache
+        Long version = customerService.getCustomerVersion(id).orElse(null);
+        if (version != null && webRequest.checkNotModified(String.valueOf(version))) {
+            return null;
+        }
+        Customer customer = version == null ? null : customerService.getCustomerById(id, version);
+        String etag = customer == null ? null : String.valueOf(customer.getVersion());
+        return ResponseEntity.ok().eTag(etag).body(customerMapper.toDTO(customer));
     }
 
     @PostMapping
@@ -1,11 +1,27 @@
 package com.akerumort.OrderManagementService.controllers;
 
+import com.akerumort.OrderManagementService.dto.CursorPageDTO;
+import com.akerumort.OrderManagementService.dto.OrderBatchResultDTO;
+import com.akerumort.OrderManagementService.dto.OrderChangeDTO;
 import com.akerumort.OrderManagementService.dto.OrderCreateDTO;
 import com.akerumort.OrderManagementService.dto.OrderDTO;
+import com.akerumort.OrderManagementService.dto.OrderField;
+import com.akerumort.OrderManagementService.dto.OrderFilterDTO;
+import com.akerumort.OrderManagementService.dto.OrderStatsDTO;
+import com.akerumort.OrderManagementService.dto.OrderTotalsDTO;
+import com.akerumort.OrderManagementService.dto.ReportJobDTO;
 import com.akerumort.OrderManagementService.entities.Order;
 import com.akerumort.OrderManagementService.exceptions.CustomValidationException;
 import com.akerumort.OrderManagementService.mappers.OrderMapper;
+import com.akerumort.OrderManagementService.services.IdempotencyService;
+import com.akerumort.OrderManagementService.services.OrderEventService;
 import com.akerumort.OrderManagementService.services.OrderService;
+import com.akerumort.OrderManagementService.services.OrderStatsService;
+import com.akerumort.OrderManagementService.services.ReportCacheService;
+import com.akerumort.OrderManagementService.services.ReportFormat;
+import com.akerumort.OrderManagementService.services.ReportJob;
+import com.akerumort.OrderManagementService.services.ReportJobService;
+import com.akerumort.OrderManagementService.utils.CursorUtil;
 import com.akerumort.OrderManagementService.utils.ValidationUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,14 +29,26 @@ import jakarta.validation.Valid;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.net.URI;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 
@@ -30,6 +58,8 @@ import org.springframework.http.MediaType;
 public class OrderController {
 
     private static final Logger logger = LogManager.getLogger(OrderController.class);
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAY_HEADER = "Idempotent-Replayed";
 
     @Autowired
     private OrderService orderService;
@@ -37,37 +67,152 @@ public class OrderController {
     @Autowired
     private OrderMapper orderMapper;
 
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderEventService orderEventService;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Value("${app.orders.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${app.pagination.max-limit:1000}")
+    private int maxPageLimit;
+
     @GetMapping
     @Operation(summary = "Get all orders", description = "Get a list of all orders with pagination")
     public List<OrderDTO> getAllOrders(
             @Parameter(description = "Page number", example = "0")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size", example = "10")
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Only return these fields: id, orderDate, customer.id, customer, products.id, products",
+                    example = "id,orderDate,customer.id")
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return orderService.getOrderFields(page, size, OrderField.parse(fields));
+        }
         List<Order> orderList = orderService.getAllOrders(page, size);
         return orderList.stream()
                 .map(orderMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "Get orders by cursor", description = "Get orders in ID order, pass nextCursor of the previous page to continue")
+    public CursorPageDTO<OrderDTO> getOrdersByCursor(
+            @Parameter(description = "Cursor returned by the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Page size", example = "100")
+            @RequestParam(defaultValue = "100") int limit) {
+        CursorUtil.validateLimit(limit, maxPageLimit);
+        List<Order> rows = orderService.getOrdersAfter(CursorUtil.decode(after), limit);
+        return CursorUtil.toPage(rows, limit, Order::getId, orderMapper::toDTO);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search orders", description = "Filter orders by customer, product and order date, pass nextCursor of the previous page to continue")
+    public CursorPageDTO<OrderDTO> searchOrders(
+            @Parameter(description = "Customer ID")
+            @RequestParam(required = false) Long customerId,
+            @Parameter(description = "Product ID")
+            @RequestParam(required = false) Long productId,
+            @Parameter(description = "Orders placed at or after", example = "2024-01-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Orders placed before", example = "2024-01-08T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Sort field", example = "ORDER_DATE")
+            @RequestParam(defaultValue = "ID") OrderFilterDTO.SortField sort,
+            @Parameter(description = "Sort direction", example = "DESC")
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            @Parameter(description = "Cursor returned by the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Page size", example = "100")
+            @RequestParam(defaultValue = "100") int limit) {
+        CursorUtil.validateLimit(limit, maxPageLimit);
+
+        OrderFilterDTO filter = new OrderFilterDTO();
+        filter.setCustomerId(customerId);
+        filter.setProductId(productId);
+        filter.setFrom(from == null ? null : Timestamp.valueOf(from));
+        filter.setTo(to == null ? null : Timestamp.valueOf(to));
+        filter.setSort(sort);
+        filter.setDirection(direction);
+
+        if (sort == OrderFilterDTO.SortField.ORDER_DATE) {
+            // order date cursors keep the full timestamp precision plus the id as tie-breaker
+            long[] keys = CursorUtil.decodeKeys(after, 3);
+            if (keys != null) {
+                Timestamp afterOrderDate = new Timestamp(keys[0] * 1000);
+                afterOrderDate.setNanos((int) keys[1]);
+                filter.setAfterOrderDate(afterOrderDate);
+                filter.setAfterId(keys[2]);
+            }
+            List<Order> rows = orderService.searchOrders(filter, limit);
+            return CursorUtil.toKeysetPage(rows, limit, order -> CursorUtil.encodeKeys(
+                    order.getOrderDate().toInstant().getEpochSecond(), order.getOrderDate().getNanos(), order.getId()),
+                    orderMapper::toDTO);
+        }
+
+        long[] keys = CursorUtil.decodeKeys(after, 1);
+        filter.setAfterId(keys == null ? null : keys[0]);
+        List<Order> rows = orderService.searchOrders(filter, limit);
+        return CursorUtil.toPage(rows, limit, Order::getId, orderMapper::toDTO);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get order by ID", description = "Get details of a specific order by ID")
-    public OrderDTO getOrderById(
+    public ResponseEntity<OrderDTO> getOrderById(
             @Parameter(description = "Order ID", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest webRequest) {
+        // a matching If-None-Match is answered with 304 before the order is loaded or serialized
+        String etag = orderService.getOrderETag(id);
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null;
+        }
         Order order = orderService.getOrderById(id);
-        return orderMapper.toDTO(order);
+        return ResponseEntity.ok().eTag(etag).body(orderMapper.toDTO(order));
     }
 
     @PostMapping
     @Operation(summary = "Create a new order", description = "Create a new order with customer and products")
-    public OrderDTO createOrder(
+    public ResponseEntity<OrderDTO> createOrder(
+            @Parameter(description = "Retries with the same key return the first response instead of a new order")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Parameter(description = "Order details", required = true)
             @Valid @RequestBody OrderCreateDTO orderCreateDTO, BindingResult bindingResult) {
         ValidationUtil.validateBindingResult(bindingResult);
-        Order order = orderMapper.toEntity(orderCreateDTO);
-        Order savedOrder = orderService.saveOrder(order);
-        return orderMapper.toDTO(savedOrder);
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(createOrder(orderCreateDTO));
+        }
+
+        IdempotencyService.Result result = idempotencyService.createOnce(idempotencyKey, orderCreateDTO,
+                () -> createOrder(orderCreateDTO));
+        return ResponseEntity.ok()
+                .header(IDEMPOTENT_REPLAY_HEADER, String.valueOf(result.replayed()))
+                .body(result.order());
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Create orders in bulk", description = "Create many orders at once, returns a result for every item")
+    public List<OrderBatchResultDTO> createOrders(
+            @Parameter(description = "Orders to create", required = true)
+            @RequestBody List<OrderCreateDTO> orderCreateDTOs) {
+        if (orderCreateDTOs.size() > maxBatchSize) {
+            throw new CustomValidationException("Batch can't contain more than " + maxBatchSize + " orders");
+        }
+        List<Order> orders = orderMapper.toEntities(orderCreateDTOs);
+        return orderService.saveOrders(orders);
     }
 
     @PutMapping("/{id}")
@@ -97,56 +242,134 @@ public class OrderController {
         orderService.deleteOrder(id);
     }
 
+    @GetMapping("/changes")
+    @Operation(summary = "Get order changes", description = "Created, updated and deleted orders after a feed position, oldest first")
+    public List<OrderChangeDTO> getOrderChanges(
+            @Parameter(description = "Position of the last change already processed", example = "0")
+            @RequestParam(defaultValue = "0") long since,
+            @Parameter(description = "Maximum number of changes", example = "100")
+            @RequestParam(defaultValue = "100") int limit) {
+        CursorUtil.validateLimit(limit, maxPageLimit);
+        return orderEventService.getChanges(since, limit);
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get order stats", description = "Get the total number of orders and revenue")
+    public OrderStatsDTO getStats() {
+        return orderStatsService.getStats();
+    }
+
+    @GetMapping("/stats/customers/{customerId}")
+    @Operation(summary = "Get customer order stats", description = "Get the number of orders and revenue of a customer")
+    public OrderTotalsDTO getCustomerStats(
+            @Parameter(description = "Customer ID", required = true)
+            @PathVariable Long customerId) {
+        return orderStatsService.getCustomerTotals(customerId);
+    }
+
+    @GetMapping("/stats/products/{productId}")
+    @Operation(summary = "Get product order stats", description = "Get the number of orders and revenue of a product")
+    public OrderTotalsDTO getProductStats(
+            @Parameter(description = "Product ID", required = true)
+            @PathVariable Long productId) {
+        return orderStatsService.getProductTotals(productId);
+    }
+
     @GetMapping("/report")
     @Operation(summary = "Get orders report", description = "Generate a report of all completed orders")
-    public String generateReport() {
-        logger.info("Generating orders report...");
-
-        try {
-            String report = orderService.generateReport();
-            logger.info("Report generated successfully");
-            return report;
-        } catch (Exception e) {
-            logger.error("Error generating report", e);
-            return "Error generating report: " + e.getMessage();
-        }
+    public ResponseEntity<StreamingResponseBody> generateReport() {
+        return streamReport(ReportFormat.TEXT);
+    }
+
+    @GetMapping("/report/csv")
+    @Operation(summary = "Get orders report in CSV", description = "Generate a CSV report of all completed orders")
+    public ResponseEntity<StreamingResponseBody> generateCsvReport() {
+        return streamReport(ReportFormat.CSV);
+    }
+
+    @GetMapping("/report/ndjson")
+    @Operation(summary = "Get orders report in NDJSON", description = "Generate a report of all completed orders, one JSON object per line")
+    public ResponseEntity<StreamingResponseBody> generateNdjsonReport() {
+        return streamReport(ReportFormat.NDJSON);
     }
 
     @GetMapping("/report/pdf")
     @Operation(summary = "Get orders report in PDF", description = "Generate a PDF report of all completed orders")
-    public ResponseEntity<byte[]> generatePdfReport() {
-        logger.info("Generating PDF orders report...");
+    public ResponseEntity<StreamingResponseBody> generatePdfReport() {
+        return streamReport(ReportFormat.PDF);
+    }
 
-        try {
-            byte[] pdfReport = orderService.generatePdfReport();
+    @GetMapping("/report/excel")
+    @Operation(summary = "Get orders report in Excel", description = "Generate an Excel report of all completed orders")
+    public ResponseEntity<StreamingResponseBody> generateExcelReport() {
+        return streamReport(ReportFormat.EXCEL);
+    }
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=orders_report.pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfReport);
+    @PostMapping("/report/jobs")
+    @Operation(summary = "Start a report job", description = "Render a report in the background, poll the job for progress")
+    public ResponseEntity<ReportJobDTO> createReportJob(
+            @Parameter(description = "Report format", example = "PDF")
+            @RequestParam(defaultValue = "PDF") ReportFormat format) {
+        ReportJob job = reportJobService.submit(format);
+        return ResponseEntity.accepted()
+                .location(URI.create("/orders/report/jobs/" + job.getId()))
+                .body(reportJobService.toDTO(job));
+    }
+
+    @GetMapping("/report/jobs/{jobId}")
+    @Operation(summary = "Get report job", description = "Get the status and progress of a report job")
+    public ReportJobDTO getReportJob(
+            @Parameter(description = "Report job ID", required = true)
+            @PathVariable String jobId) {
+        return reportJobService.toDTO(reportJobService.getJob(jobId));
+    }
 
-        } catch (Exception e) {
-            logger.error("Error generating PDF report", e);
-            return ResponseEntity.status(500).body(null);
+    @GetMapping("/report/jobs/{jobId}/file")
+    @Operation(summary = "Download report job result", description = "Download a finished report, supports Range requests")
+    public ResponseEntity<Resource> downloadReportJobFile(
+            @Parameter(description = "Report job ID", required = true)
+            @PathVariable String jobId) {
+        ReportJob job = reportJobService.getJob(jobId);
+        if (job.getStatus() != ReportJob.Status.DONE) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
+
+        // Range headers are handled by Spring for Resource bodies
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=orders_report." + job.getFormat().getExtension())
+                .contentType(MediaType.parseMediaType(job.getFormat().getContentType()))
+                .body(new FileSystemResource(job.getFile()));
     }
 
-    @GetMapping("/report/excel")
-    @Operation(summary = "Get orders report in Excel", description = "Generate an Excel report of all completed orders")
-    public ResponseEntity<byte[]> generateExcelReport() {
-        logger.info("Generating Excel orders report...");
+    private OrderDTO createOrder(OrderCreateDTO orderCreateDTO) {
+        Order order = orderMapper.toEntity(orderCreateDTO);
+        Order savedOrder = orderService.saveOrder(order);
+        return orderMapper.toDTO(savedOrder);
+    }
 
-        try {
-            byte[] excelReport = orderService.generateExcelReport();
+    private ResponseEntity<StreamingResponseBody> streamReport(ReportFormat format) {
+        // Spring answers 304 itself when If-None-Match carries this ETag, the body below is never called then.
+        // The version can only move forward while the body runs, so a stale ETag never matches newer content
+        String etag = reportCacheService.currentETag(format);
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=orders_report.xlsx")
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(excelReport);
+        StreamingResponseBody body = out -> {
+            try {
+                reportCacheService.writeReport(format, out);
+            } catch (IOException e) {
+                logger.error("Error generating {} report", format, e);
+                throw e;
+            }
+        };
 
-        } catch (IOException e) {
-            logger.error("Error generating Excel report", e);
-            return ResponseEntity.status(500).body(null);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.parseMediaType(format.getContentType()));
+        if (format != ReportFormat.TEXT) {
+            response.header(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=orders_report." + format.getExtension());
         }
+        return response.body(body);
     }
 }
@@ -1,17 +1,22 @@
 package com.akerumort.OrderManagementService.controllers;
 
+import com.akerumort.OrderManagementService.dto.CursorPageDTO;
 import com.akerumort.OrderManagementService.dto.ProductCreateDTO;
 import com.akerumort.OrderManagementService.dto.ProductDTO;
 import com.akerumort.OrderManagementService.entities.Product;
 import com.akerumort.OrderManagementService.mappers.ProductMapper;
 import com.akerumort.OrderManagementService.services.ProductService;
+import com.akerumort.OrderManagementService.utils.CursorUtil;
 import com.akerumort.OrderManagementService.utils.ValidationUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -26,6 +31,9 @@ public class ProductController {
     @Autowired
     private ProductMapper productMapper;
 
+    @Value("${app.pagination.max-limit:1000}")
+    private int maxPageLimit;
+
     @GetMapping
     @Operation(summary = "Get all products", description = "Get a list of all products with pagination")
     public List<ProductDTO> getAllProducts(
@@ -39,13 +47,33 @@ public class ProductController {
                 .collect(Collectors.toList());
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "Get products by cursor", description = "Get products in ID order, pass nextCursor of the previous page to continue")
+    public CursorPageDTO<ProductDTO> getProductsByCursor(
+            @Parameter(description = "Cursor returned by the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Page size", example = "100")
+            @RequestParam(defaultValue = "100") int limit) {
+        CursorUtil.validateLimit(limit, maxPageLimit);
+        List<Product> rows = productService.getProductsAfter(CursorUtil.decode(after), limit);
+        return CursorUtil.toPage(rows, limit, Product::getId, productMapper::toDTO);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get product by ID", description = "Get details of a specific product by ID")
-    public ProductDTO getProductById(
+    public ResponseEntity<ProductDTO> getProductById(
             @Parameter(description = "Product ID", required = true)
-            @PathVariable Long id) {
-        Product product = productService.getProductById(id);
-        return productMapper.toDTO(product);
+            @PathVariable Long id,
+            WebRequest webRequest) {
+        // the ETag is the version read from the database, a matching If-None-Match skips loading, mapping and
+        // serialization; otherwise the product usually comes from the near cache
+        Long version = productService.getProductVersion(id).orElse(null);
+        if (version != null && webRequest.checkNotModified(String.valueOf(version))) {
+            return null;
+        }
+        Product product = version == null ? null : productService.getProductById(id, version);
+        String etag = product == null ? null : String.valueOf(product.getVersion());
+        return ResponseEntity.ok().eTag(etag).body(productMapper.toDTO(product));
     }
 
     @PostMapping
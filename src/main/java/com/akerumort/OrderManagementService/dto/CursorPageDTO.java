@@ -0,0 +1,13 @@
+package com.akerumort.OrderManagementService.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private String nextCursor;
+}
@@ -0,0 +1,13 @@
+package com.akerumort.OrderManagementService.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class OrderBatchResultDTO {
+    private int index;
+    private Long orderId;
+    private boolean created;
+    private String error;
+}
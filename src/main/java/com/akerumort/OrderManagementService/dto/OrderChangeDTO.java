@@ -0,0 +1,18 @@
+package com.akerumort.OrderManagementService.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+@Getter
+@Setter
+public class OrderChangeDTO {
+    private long position;
+    private Long orderId;
+    private String type;
+    @JsonRawValue
+    private String order;
+    private Timestamp createdAt;
+}
@@ -0,0 +1,51 @@
+package com.akerumort.OrderManagementService.dto;
+
+import com.akerumort.OrderManagementService.exceptions.CustomValidationException;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// the parts of OrderDTO a fields= projection can ask for, each maps to the columns it needs
+public enum OrderField {
+    ID("id"),
+    ORDER_DATE("orderDate"),
+    CUSTOMER_ID("customer.id"),
+    CUSTOMER("customer"),
+    PRODUCT_IDS("products.id"),
+    PRODUCTS("products");
+
+    private final String fieldName;
+
+    OrderField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    // "id,orderDate,customer.id" -> [ID, ORDER_DATE, CUSTOMER_ID]
+    public static Set<OrderField> parse(String fields) {
+        Set<OrderField> parsed = EnumSet.noneOf(OrderField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            OrderField field = null;
+            for (OrderField candidate : values()) {
+                if (candidate.fieldName.equals(trimmed)) {
+                    field = candidate;
+                }
+            }
+            if (field == null) {
+                throw new CustomValidationException("Unknown field: " + trimmed);
+            }
+            parsed.add(field);
+        }
+        if (parsed.isEmpty()) {
+            throw new CustomValidationException("At least one field is required");
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,17 @@
+package com.akerumort.OrderManagementService.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// what a fields= projection returns: the parts that weren't selected stay null and aren't written.
+// Only these subclasses leave nulls out, every other response keeps writing all fields of the DTOs
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderFieldsDTO extends OrderDTO {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Customer extends CustomerDTO {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Product extends ProductDTO {
+    }
+}
@@ -0,0 +1,28 @@
+package com.akerumort.OrderManagementService.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.domain.Sort;
+
+import java.sql.Timestamp;
+
+@Getter
+@Setter
+public class OrderFilterDTO {
+
+    public enum SortField {
+        ID,
+        ORDER_DATE
+    }
+
+    private Long customerId;
+    private Long productId;
+    private Timestamp from;
+    private Timestamp to;
+    private SortField sort = SortField.ID;
+    private Sort.Direction direction = Sort.Direction.ASC;
+
+    // keyset position of the last row already returned
+    private Long afterId;
+    private Timestamp afterOrderDate;
+}
@@ -0,0 +1,13 @@
+package com.akerumort.OrderManagementService.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+public class OrderStatsDTO {
+    private long totalOrders;
+    private BigDecimal totalRevenue;
+}
@@ -0,0 +1,14 @@
+package com.akerumort.OrderManagementService.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+public class OrderTotalsDTO {
+    private Long id;
+    private long orders;
+    private BigDecimal revenue;
+}
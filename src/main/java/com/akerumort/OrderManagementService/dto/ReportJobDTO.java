@@ -0,0 +1,20 @@
+package com.akerumort.OrderManagementService.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+@Getter
+@Setter
+public class ReportJobDTO {
+    private String id;
+    private String format;
+    private String status;
+    private long processedOrders;
+    private long totalOrders;
+    private int progress;
+    private String error;
+    private Timestamp createdAt;
+    private Timestamp finishedAt;
+}
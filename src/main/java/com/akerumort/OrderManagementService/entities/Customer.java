@@ -26,4 +26,7 @@ public class Customer {
     @Email(message = "Email should be valid")
     @Size(max = 255, message = "Email can't be longer than 255 characters")
     private String email;
+
+    @Version
+    private Long version;
 }
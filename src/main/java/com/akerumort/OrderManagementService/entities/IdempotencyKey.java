@@ -0,0 +1,28 @@
+package com.akerumort.OrderManagementService.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.sql.Timestamp;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "idempotency_key")
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    private String requestHash;
+
+    private Long orderId;
+
+    // the OrderDTO returned by the first request, as JSON
+    private String response;
+
+    private Timestamp createdAt;
+}
@@ -0,0 +1,41 @@
+package com.akerumort.OrderManagementService.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.sql.Timestamp;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "order_event")
+public class OrderEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_event_seq")
+    @SequenceGenerator(name = "order_event_seq", sequenceName = "order_event_seq", allocationSize = 50)
+    private Long id;
+
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    private Type eventType;
+
+    // the order as JSON at the time of the change
+    private String payload;
+
+    private Timestamp createdAt;
+
+    // feed position, set by the relay when the event is published
+    private Long position;
+
+    private Timestamp publishedAt;
+}
@@ -32,4 +32,7 @@ public class Product {
     @NotNull(message = "Price is required")
     @DecimalMin(value = "0.0", inclusive = false, message = "Price must be over 0")
     private BigDecimal price;
+
+    @Version
+    private Long version;
 }
\ No newline at end of file
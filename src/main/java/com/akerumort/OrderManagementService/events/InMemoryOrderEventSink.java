@@ -0,0 +1,30 @@
+package com.akerumort.OrderManagementService.events;
+
+import com.akerumort.OrderManagementService.entities.OrderEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// keeps published events in memory, for tests and local runs
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "memory")
+public class InMemoryOrderEventSink implements OrderEventSink {
+
+    private final List<OrderEvent> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<OrderEvent> published) {
+        events.addAll(published);
+    }
+
+    public List<OrderEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public void clear() {
+        events.clear();
+    }
+}
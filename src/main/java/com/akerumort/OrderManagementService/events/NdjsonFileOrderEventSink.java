@@ -0,0 +1,48 @@
+package com.akerumort.OrderManagementService.events;
+
+import com.akerumort.OrderManagementService.entities.OrderEvent;
+import com.akerumort.OrderManagementService.services.OrderEventService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// appends every event as one JSON line
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "file", matchIfMissing = true)
+public class NdjsonFileOrderEventSink implements OrderEventSink {
+
+    @Autowired
+    private OrderEventService orderEventService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.outbox.file:${java.io.tmpdir}/order-events.ndjson}")
+    private String file;
+
+    @Override
+    public synchronized void publish(List<OrderEvent> events) throws IOException {
+        Path path = Paths.get(file);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OrderEvent event : events) {
+                writer.write(objectMapper.writeValueAsString(orderEventService.toDTO(event)));
+                writer.newLine();
+            }
+        }
+    }
+}
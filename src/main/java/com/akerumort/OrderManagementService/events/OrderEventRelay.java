@@ -0,0 +1,123 @@
+package com.akerumort.OrderManagementService.events;
+
+import com.akerumort.OrderManagementService.entities.OrderEvent;
+import com.akerumort.OrderManagementService.repositories.OrderEventRepository;
+import jakarta.annotation.PostConstruct;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// moves committed outbox rows to the sink in batches. One relay at a time holds a database lock for the
+// whole run, so positions grow in commit order and /orders/changes?since= never skips an event. Positions
+// are committed before a batch goes to the sink: a batch that has to be sent again keeps its positions
+@Component
+public class OrderEventRelay {
+    private static final Logger logger = LogManager.getLogger(OrderEventRelay.class);
+    private static final long RELAY_LOCK_ID = 0x6F72646572L;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private OrderEventSink orderEventSink;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.retention:604800000}")
+    private long retention;
+
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate batchTransactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // positions and published marks commit on their own while the run's transaction keeps the lock
+        batchTransactionTemplate = new TransactionTemplate(transactionManager);
+        batchTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay-interval:1000}", initialDelayString = "${app.outbox.relay-interval:1000}")
+    public void relay() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!orderEventRepository.tryLock(RELAY_LOCK_ID)) {
+                    return;
+                }
+                List<OrderEvent> events;
+                do {
+                    events = batchTransactionTemplate.execute(batchStatus -> nextBatch());
+                    publish(events);
+                } while (events.size() == batchSize);
+            });
+        } catch (Exception e) {
+            logger.error("Failed to publish order events: ", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval:3600000}")
+    public void removePublishedEvents() {
+        Timestamp publishedBefore = new Timestamp(System.currentTimeMillis() - retention);
+        Integer removed = transactionTemplate.execute(status -> orderEventRepository.deletePublishedBefore(publishedBefore));
+        logger.info("Removed {} published order events", removed);
+    }
+
+    private List<OrderEvent> nextBatch() {
+        // a batch whose publish failed goes out again first, with the same positions
+        List<OrderEvent> events = orderEventRepository.findAssignedUnpublished(Limit.of(batchSize));
+        if (!events.isEmpty()) {
+            return events;
+        }
+
+        events = orderEventRepository.findUnassigned(Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return events;
+        }
+        // nobody else draws from the sequence while the lock is held, the positions are contiguous
+        List<Long> positions = new ArrayList<>(orderEventRepository.nextPositions(events.size()));
+        Collections.sort(positions);
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).setPosition(positions.get(i));
+        }
+        return events;
+    }
+
+    private void publish(List<OrderEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            orderEventSink.publish(events);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Timestamp publishedAt = new Timestamp(System.currentTimeMillis());
+        List<Long> ids = new ArrayList<>(events.size());
+        for (OrderEvent event : events) {
+            event.setPublishedAt(publishedAt);
+            ids.add(event.getId());
+        }
+        batchTransactionTemplate.executeWithoutResult(status -> orderEventRepository.markPublished(ids, publishedAt));
+        logger.info("Published {} order events up to position {}", events.size(),
+                events.get(events.size() - 1).getPosition());
+    }
+}
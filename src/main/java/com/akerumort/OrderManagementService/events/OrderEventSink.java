@@ -0,0 +1,13 @@
+package com.akerumort.OrderManagementService.events;
+
+import com.akerumort.OrderManagementService.entities.OrderEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+// receives published order events in feed order; a batch is delivered again, with the same positions,
+// when the relay fails before recording it as published, so consumers should dedupe by position
+public interface OrderEventSink {
+
+    void publish(List<OrderEvent> events) throws IOException;
+}
@@ -0,0 +1,7 @@
+package com.akerumort.OrderManagementService.exceptions;
+
+public class IdempotencyKeyConflictException extends RuntimeException {
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
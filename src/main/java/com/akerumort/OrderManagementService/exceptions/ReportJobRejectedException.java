@@ -0,0 +1,7 @@
+package com.akerumort.OrderManagementService.exceptions;
+
+public class ReportJobRejectedException extends RuntimeException {
+    public ReportJobRejectedException(String message) {
+        super(message);
+    }
+}
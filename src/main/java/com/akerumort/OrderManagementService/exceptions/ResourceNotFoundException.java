@@ -0,0 +1,7 @@
+package com.akerumort.OrderManagementService.exceptions;
+
+public class ResourceNotFoundException extends RuntimeException {
+    public ResourceNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -13,6 +13,10 @@ import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Mapper(componentModel = "spring", uses = {CustomerService.class, ProductService.class})
@@ -31,13 +35,73 @@ public abstract class OrderMapper {
 
     public abstract OrderDTO toDTO(Order order);
 
+    // maps a whole batch with one customer and one product lookup
+    public List<Order> toEntities(List<OrderCreateDTO> orderCreateDTOs) {
+        Set<Long> customerIds = orderCreateDTOs.stream()
+                .filter(Objects::nonNull)
+                .map(OrderCreateDTO::getCustomerId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> productIds = orderCreateDTOs.stream()
+                .filter(dto -> dto != null && dto.getProductIds() != null)
+                .flatMap(dto -> dto.getProductIds().stream())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, Customer> customersById = customerService.getCustomersByIds(customerIds).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        Map<Long, Product> productsById = productService.getProductsByIds(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        return orderCreateDTOs.stream().map(dto -> {
+            Order order = new Order();
+            if (dto != null) {
+                if (dto.getCustomerId() != null) {
+                    order.setCustomer(customersById.getOrDefault(dto.getCustomerId(),
+                            unresolvedCustomer(dto.getCustomerId())));
+                }
+                if (dto.getProductIds() != null) {
+                    order.setProducts(resolveProducts(dto.getProductIds(), productsById));
+                }
+            }
+            return order;
+        }).collect(Collectors.toList());
+    }
+
     @Named("mapProductIdsToProducts")
     List<Product> mapProductIdsToProducts(List<Long> productIds) {
-        return productIds.stream().map(productService::getProductById).collect(Collectors.toList());
+        Set<Long> distinctIds = productIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, Product> productsById = productService.getProductsByIds(distinctIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return resolveProducts(productIds, productsById);
+    }
+
+    // unknown IDs are kept as id-only entities without a version, validation reports all of them at once
+    // instead of looking them up a second time
+    private List<Product> resolveProducts(List<Long> productIds, Map<Long, Product> productsById) {
+        return productIds.stream()
+                .map(id -> productsById.getOrDefault(id, unresolvedProduct(id)))
+                .collect(Collectors.toList());
+    }
+
+    private Customer unresolvedCustomer(Long id) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        return customer;
+    }
+
+    private Product unresolvedProduct(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
     }
 
     @Named("mapCustomerIdToCustomer")
     public Customer mapCustomerIdToCustomer(Long customerId) {
-        return customerService.getCustomerById(customerId);
+        if (customerId == null) {
+            return null;
+        }
+        Customer customer = customerService.getCustomerById(customerId);
+        return customer != null ? customer : unresolvedCustomer(customerId);
     }
 }
@@ -1,7 +1,21 @@
 package com.akerumort.OrderManagementService.repositories;
 
 import com.akerumort.OrderManagementService.entities.Customer;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    @Query("select c.id from Customer c order by c.id")
+    List<Long> findAllIds();
+
+    @Query("select c.version from Customer c where c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    List<Customer> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
@@ -0,0 +1,30 @@
+package com.akerumort.OrderManagementService.repositories;
+
+import com.akerumort.OrderManagementService.entities.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.sql.Timestamp;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // a plain insert: save() would select first because the id is assigned, and a duplicate key
+    // has to fail on the primary key rather than turn into an update
+    @Modifying
+    @Query(value = "insert into idempotency_key (idempotency_key, request_hash, order_id, response, created_at) "
+            + "values (:#{#key.key}, :#{#key.requestHash}, :#{#key.orderId}, :#{#key.response}, :#{#key.createdAt})",
+            nativeQuery = true)
+    void insert(@Param("key") IdempotencyKey key);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :createdBefore")
+    int deleteCreatedBefore(@Param("createdBefore") Timestamp createdBefore);
+
+    // a key past the retention that the cleanup hasn't removed yet, so the key can be used again
+    @Modifying
+    @Query(value = "delete from idempotency_key where idempotency_key = :key and created_at < :createdBefore",
+            nativeQuery = true)
+    int deleteExpired(@Param("key") String key, @Param("createdBefore") Timestamp createdBefore);
+}
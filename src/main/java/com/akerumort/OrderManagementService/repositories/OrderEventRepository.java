@@ -0,0 +1,40 @@
+package com.akerumort.OrderManagementService.repositories;
+
+import com.akerumort.OrderManagementService.entities.OrderEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    @Query("select e from OrderEvent e where e.position is null order by e.id")
+    List<OrderEvent> findUnassigned(Limit limit);
+
+    // positioned by a relay run that failed before the sink confirmed them
+    @Query("select e from OrderEvent e where e.position is not null and e.publishedAt is null order by e.position")
+    List<OrderEvent> findAssignedUnpublished(Limit limit);
+
+    List<OrderEvent> findByPositionGreaterThanOrderByPositionAsc(Long position, Limit limit);
+
+    // a sequence rather than max(position) + 1: published rows are deleted after the retention,
+    // positions must not start over once the table is empty
+    @Query(value = "select nextval('order_event_position_seq') from generate_series(1, :count)", nativeQuery = true)
+    List<Long> nextPositions(@Param("count") int count);
+
+    @Modifying
+    @Query("update OrderEvent e set e.publishedAt = :publishedAt where e.id in :ids")
+    int markPublished(@Param("ids") List<Long> ids, @Param("publishedAt") Timestamp publishedAt);
+
+    // held until the relay's transaction ends, so only one instance publishes at a time
+    @Query(value = "select pg_try_advisory_xact_lock(:lockId)", nativeQuery = true)
+    boolean tryLock(@Param("lockId") long lockId);
+
+    @Modifying
+    @Query("delete from OrderEvent e where e.publishedAt < :publishedBefore")
+    int deletePublishedBefore(@Param("publishedBefore") Timestamp publishedBefore);
+}
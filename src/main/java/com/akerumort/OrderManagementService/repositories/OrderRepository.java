@@ -1,7 +1,47 @@
 package com.akerumort.OrderManagementService.repositories;
 
 import com.akerumort.OrderManagementService.entities.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+import java.util.List;
+import java.util.Optional;
+
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
+
+    // the customer is joined into the page query, the products of the whole page come in one batch (@BatchSize)
+    @Override
+    @EntityGraph(attributePaths = "customer")
+    Page<Order> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"customer", "products"})
+    Optional<Order> findById(Long id);
+
+    // every entity GET /orders/{id} renders: product versions only grow and a changed product list bumps
+    // the order's version, so the sum changes whenever one of the products does
+    @Query("select concat(cast(o.version as String), '-', cast(c.version as String), '-', "
+            + "cast(coalesce(sum(p.version), 0) as String)) "
+            + "from Order o join o.customer c left join o.products p where o.id = :id group by o.id, o.version, c.version")
+    Optional<String> findContentVersionById(@Param("id") Long id);
+
+    // has to be the first statement of the transaction; set per transaction, so it works whatever
+    // isolation the transaction manager and Hibernate's connection handling allow at begin
+    @Modifying
+    @Query(value = "set transaction isolation level repeatable read", nativeQuery = true)
+    void useRepeatableRead();
+
+    @Query("select o.customer.id, count(o) from Order o group by o.customer.id")
+    List<Object[]> countOrdersByCustomer();
+
+    @Query("select o.customer.id, sum(p.price) from Order o join o.products p group by o.customer.id")
+    List<Object[]> sumRevenueByCustomer();
+
+    @Query("select p.id, count(o), sum(p.price) from Order o join o.products p group by p.id")
+    List<Object[]> countOrdersAndSumRevenueByProduct();
 }
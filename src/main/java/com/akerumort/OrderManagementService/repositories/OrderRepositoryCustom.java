@@ -0,0 +1,33 @@
+package com.akerumort.OrderManagementService.repositories;
+
+import com.akerumort.OrderManagementService.dto.OrderDTO;
+import com.akerumort.OrderManagementService.dto.OrderField;
+import com.akerumort.OrderManagementService.dto.OrderFilterDTO;
+import com.akerumort.OrderManagementService.entities.Order;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public interface OrderRepositoryCustom {
+
+    // walks all orders by id (keyset paging), customer and products are fetched with the order;
+    // the persistence context is cleared after every batch, so callers must not keep the entities
+    void scanAll(int batchSize, Consumer<List<Order>> batchConsumer);
+
+    // scanAll restricted to fromId <= id < toId, used to render a report in parallel ranges
+    void scanRange(long fromId, long toId, int batchSize, Consumer<List<Order>> batchConsumer);
+
+    // {min id, max id}, null when there are no orders
+    long[] findIdBounds();
+
+    // one keyset page of orders with customer and products, in id order
+    List<Order> findPageAfter(long lastId, int limit);
+
+    // one offset page in id order with only the requested fields filled in; customer and product
+    // columns are only selected when asked for, products come from a second query for the page
+    List<OrderDTO> findFieldsPage(int page, int size, Set<OrderField> fields);
+
+    // orders matching the filter in the requested order, starting after the filter's keyset position
+    List<Order> findByFilter(OrderFilterDTO filter, int limit);
+}
@@ -0,0 +1,238 @@
+package com.akerumort.OrderManagementService.repositories;
+
+import com.akerumort.OrderManagementService.dto.CustomerDTO;
+import com.akerumort.OrderManagementService.dto.OrderDTO;
+import com.akerumort.OrderManagementService.dto.OrderField;
+import com.akerumort.OrderManagementService.dto.OrderFieldsDTO;
+import com.akerumort.OrderManagementService.dto.OrderFilterDTO;
+import com.akerumort.OrderManagementService.dto.ProductDTO;
+import com.akerumort.OrderManagementService.entities.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void scanAll(int batchSize, Consumer<List<Order>> batchConsumer) {
+        scanRange(1L, Long.MAX_VALUE, batchSize, batchConsumer);
+    }
+
+    @Override
+    public void scanRange(long fromId, long toId, int batchSize, Consumer<List<Order>> batchConsumer) {
+        long lastId = fromId - 1;
+        List<Long> ids;
+
+        do {
+            ids = findIdsBetween(lastId, toId, batchSize);
+            if (ids.isEmpty()) {
+                return;
+            }
+
+            batchConsumer.accept(findWithDetails(ids));
+
+            lastId = ids.get(ids.size() - 1);
+            entityManager.clear();
+        } while (ids.size() == batchSize);
+    }
+
+    @Override
+    public long[] findIdBounds() {
+        Object[] bounds = entityManager.createQuery("select min(o.id), max(o.id) from Order o", Object[].class)
+                .getSingleResult();
+        return bounds[0] == null ? null : new long[]{(Long) bounds[0], (Long) bounds[1]};
+    }
+
+    @Override
+    public List<Order> findPageAfter(long lastId, int limit) {
+        List<Long> ids = findIdsAfter(lastId, limit);
+        return ids.isEmpty() ? Collections.emptyList() : findWithDetails(ids);
+    }
+
+    @Override
+    public List<OrderDTO> findFieldsPage(int page, int size, Set<OrderField> fields) {
+        boolean withCustomer = fields.contains(OrderField.CUSTOMER);
+        StringBuilder jpql = new StringBuilder("select o.id, o.orderDate");
+        if (withCustomer) {
+            jpql.append(", c.id, c.name, c.email from Order o join o.customer c");
+        } else {
+            jpql.append(", o.customer.id from Order o"); // the foreign key column, no join
+        }
+        jpql.append(" order by o.id");
+
+        List<Object[]> rows = entityManager.createQuery(jpql.toString(), Object[].class)
+                .setFirstResult(page * size)
+                .setMaxResults(size)
+                .getResultList();
+
+        boolean withProducts = fields.contains(OrderField.PRODUCTS) || fields.contains(OrderField.PRODUCT_IDS);
+        Map<Long, OrderDTO> ordersById = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            OrderDTO orderDTO = new OrderFieldsDTO();
+            if (withProducts) {
+                orderDTO.setProducts(new ArrayList<>());
+            }
+            if (fields.contains(OrderField.ID)) {
+                orderDTO.setId((Long) row[0]);
+            }
+            if (fields.contains(OrderField.ORDER_DATE)) {
+                orderDTO.setOrderDate((Timestamp) row[1]);
+            }
+            if (withCustomer || fields.contains(OrderField.CUSTOMER_ID)) {
+                CustomerDTO customerDTO = new OrderFieldsDTO.Customer();
+                customerDTO.setId((Long) row[2]);
+                if (withCustomer) {
+                    customerDTO.setName((String) row[3]);
+                    customerDTO.setEmail((String) row[4]);
+                }
+                orderDTO.setCustomer(customerDTO);
+            }
+            ordersById.put((Long) row[0], orderDTO);
+        }
+
+        if (withProducts && !ordersById.isEmpty()) {
+            if (fields.contains(OrderField.PRODUCTS)) {
+                addProducts(ordersById);
+            } else if (fields.contains(OrderField.PRODUCT_IDS)) {
+                addProductIds(ordersById);
+            }
+        }
+        return new ArrayList<>(ordersById.values());
+    }
+
+    @Override
+    public List<Order> findByFilter(OrderFilterDTO filter, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Order> order = query.from(Order.class);
+        Path<Long> id = order.get("id");
+        Path<Timestamp> orderDate = order.get("orderDate");
+
+        // customer and date predicates are served by the (customer_id, order_date) and order_date indexes
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getCustomerId() != null) {
+            predicates.add(cb.equal(order.get("customer").get("id"), filter.getCustomerId()));
+        }
+        if (filter.getProductId() != null) {
+            // a product can be linked to an order more than once (quantity), a join would repeat the order
+            Subquery<Integer> linked = query.subquery(Integer.class);
+            Root<Order> linkedOrder = linked.correlate(order);
+            linked.select(cb.literal(1))
+                    .where(cb.equal(linkedOrder.join("products").get("id"), filter.getProductId()));
+            predicates.add(cb.exists(linked));
+        }
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(orderDate, filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            predicates.add(cb.lessThan(orderDate, filter.getTo()));
+        }
+
+        boolean descending = filter.getDirection() == Sort.Direction.DESC;
+        if (filter.getSort() == OrderFilterDTO.SortField.ORDER_DATE) {
+            if (filter.getAfterOrderDate() != null) {
+                Timestamp afterDate = filter.getAfterOrderDate();
+                predicates.add(descending
+                        ? cb.or(cb.lessThan(orderDate, afterDate),
+                                cb.and(cb.equal(orderDate, afterDate), cb.lessThan(id, filter.getAfterId())))
+                        : cb.or(cb.greaterThan(orderDate, afterDate),
+                                cb.and(cb.equal(orderDate, afterDate), cb.greaterThan(id, filter.getAfterId()))));
+            }
+            query.orderBy(descending
+                    ? List.of(cb.desc(orderDate), cb.desc(id))
+                    : List.of(cb.asc(orderDate), cb.asc(id)));
+        } else {
+            if (filter.getAfterId() != null) {
+                predicates.add(descending ? cb.lessThan(id, filter.getAfterId()) : cb.greaterThan(id, filter.getAfterId()));
+            }
+            query.orderBy(descending ? cb.desc(id) : cb.asc(id));
+        }
+
+        query.select(id).where(predicates.toArray(new Predicate[0]));
+        List<Long> ids = entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // details come back in id order, put them back into the requested order
+        Map<Long, Order> ordersById = new HashMap<>();
+        for (Order found : findWithDetails(ids)) {
+            ordersById.put(found.getId(), found);
+        }
+        return ids.stream().map(ordersById::get).toList();
+    }
+
+    // ids first: limiting a query that fetch-joins a collection would be done in memory
+    private List<Long> findIdsAfter(long lastId, int limit) {
+        return findIdsBetween(lastId, Long.MAX_VALUE, limit);
+    }
+
+    private List<Long> findIdsBetween(long lastId, long toId, int limit) {
+        return entityManager.createQuery(
+                        "select o.id from Order o where o.id > :lastId and o.id < :toId order by o.id", Long.class)
+                .setParameter("lastId", lastId)
+                .setParameter("toId", toId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private void addProducts(Map<Long, OrderDTO> ordersById) {
+        List<Object[]> rows = entityManager.createQuery(
+                        "select o.id, p.id, p.name, p.description, p.price from Order o join o.products p "
+                                + "where o.id in :ids", Object[].class)
+                .setParameter("ids", ordersById.keySet())
+                .getResultList();
+        for (Object[] row : rows) {
+            ProductDTO productDTO = new OrderFieldsDTO.Product();
+            productDTO.setId((Long) row[1]);
+            productDTO.setName((String) row[2]);
+            productDTO.setDescription((String) row[3]);
+            productDTO.setPrice((BigDecimal) row[4]);
+            ordersById.get((Long) row[0]).getProducts().add(productDTO);
+        }
+    }
+
+    // straight from the join table, the product table isn't touched
+    private void addProductIds(Map<Long, OrderDTO> ordersById) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "select order_id, product_id from order_product where order_id in (:ids)")
+                .setParameter("ids", ordersById.keySet())
+                .getResultList();
+        for (Object[] row : rows) {
+            ProductDTO productDTO = new OrderFieldsDTO.Product();
+            productDTO.setId(((Number) row[1]).longValue());
+            ordersById.get(((Number) row[0]).longValue()).getProducts().add(productDTO);
+        }
+    }
+
+    private List<Order> findWithDetails(List<Long> ids) {
+        return entityManager.createQuery(
+                        "select distinct o from Order o join fetch o.customer left join fetch o.products "
+                                + "where o.id in :ids order by o.id", Order.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+}
@@ -1,7 +1,21 @@
 package com.akerumort.OrderManagementService.repositories;
 
 import com.akerumort.OrderManagementService.entities.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    @Query("select p.id from Product p order by p.id")
+    List<Long> findAllIds();
+
+    @Query("select p.version from Product p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
@@ -1,9 +1,8 @@
 package com.akerumort.OrderManagementService.schedulers;
 
+import com.akerumort.OrderManagementService.dto.OrderBatchResultDTO;
 import com.akerumort.OrderManagementService.dto.OrderCreateDTO;
-import com.akerumort.OrderManagementService.entities.Customer;
 import com.akerumort.OrderManagementService.entities.Order;
-import com.akerumort.OrderManagementService.entities.Product;
 import com.akerumort.OrderManagementService.mappers.OrderMapper;
 import com.akerumort.OrderManagementService.services.CustomerService;
 import com.akerumort.OrderManagementService.services.OrderService;
@@ -11,17 +10,20 @@ import com.akerumort.OrderManagementService.services.ProductService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Component
+@ConditionalOnProperty(name = "app.generator.enabled", havingValue = "true", matchIfMissing = true)
 public class OrderScheduler {
 
     private static final Logger logger = LogManager.getLogger(OrderScheduler.class);
@@ -38,38 +40,72 @@ public class OrderScheduler {
     @Autowired
     private ProductService productService;
 
-    private Random random = new Random();
+    @Value("${app.generator.batch-size:1}")
+    private int batchSize;
+
+    @Value("${app.generator.products-per-order:3}")
+    private int productsPerOrder;
+
+    @Value("${app.generator.id-refresh-interval:300000}")
+    private long idRefreshInterval;
+
+    // IDs are sampled from cached arrays, so a tick doesn't load any entities
+    private volatile long[] customerIds = new long[0];
+    private volatile long[] productIds = new long[0];
+    private volatile long idsLoadedAt;
 
     @Async
-    @Scheduled(fixedRate = 60000) // every 60 sec
+    @Scheduled(fixedRateString = "${app.generator.rate:60000}") // every 60 sec by default
     public void createRandomOrder() {
         try {
-            List<Customer> customers = customerService.getAllCustomers(0, 100);
-            if (customers.isEmpty()) {
+            refreshIdsIfStale();
+            long[] customers = customerIds;
+            long[] products = productIds;
+            if (customers.length == 0 || products.length == 0) {
                 return;
             }
-            Customer randomCustomer = customers.get(random.nextInt(customers.size()));
 
-            List<Product> products = new ArrayList<>(productService.getAllProducts(0, 100));
-            if (products.isEmpty()) {
-                return;
+            List<OrderCreateDTO> orderCreateDTOs = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                orderCreateDTOs.add(randomOrder(customers, products));
             }
 
-            Collections.shuffle(products);
-            List<Long> randomProductIds = products.subList(0, Math.min(3, products.size()))
-                    .stream().map(Product::getId).collect(Collectors.toList());
+            List<Order> orders = orderMapper.toEntities(orderCreateDTOs);
+            List<OrderBatchResultDTO> results = orderService.saveOrders(orders);
 
-            OrderCreateDTO orderCreateDTO = new OrderCreateDTO();
-            orderCreateDTO.setCustomerId(randomCustomer.getId());
-            orderCreateDTO.setProductIds(randomProductIds);
-
-            Order order = orderMapper.toEntity(orderCreateDTO);
-            orderService.saveOrder(order);
-
-            logger.info("Random order created successfully with ID: {}", order.getId());
+            long created = results.stream().filter(OrderBatchResultDTO::isCreated).count();
+            if (created < results.size()) {
+                // some sampled IDs no longer exist, pick up the current catalogue on the next tick
+                idsLoadedAt = 0;
+            }
+            logger.info("Random orders created successfully: {} of {}", created, results.size());
 
         } catch (Exception e) {
             logger.error("Failed to create random order: ", e);
         }
     }
+
+    private OrderCreateDTO randomOrder(long[] customers, long[] products) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int productCount = Math.min(productsPerOrder, products.length);
+        Set<Long> randomProductIds = new LinkedHashSet<>();
+        while (randomProductIds.size() < productCount) {
+            randomProductIds.add(products[random.nextInt(products.length)]);
+        }
+
+        OrderCreateDTO orderCreateDTO = new OrderCreateDTO();
+        orderCreateDTO.setCustomerId(customers[random.nextInt(customers.length)]);
+        orderCreateDTO.setProductIds(new ArrayList<>(randomProductIds));
+        return orderCreateDTO;
+    }
+
+    private synchronized void refreshIdsIfStale() {
+        if (System.currentTimeMillis() - idsLoadedAt < idRefreshInterval) {
+            return;
+        }
+        customerIds = customerService.getAllCustomerIds().stream().mapToLong(Long::longValue).toArray();
+        productIds = productService.getAllProductIds().stream().mapToLong(Long::longValue).toArray();
+        idsLoadedAt = System.currentTimeMillis();
+        logger.info("Refreshed ID samples: {} customers, {} products", customerIds.length, productIds.length);
+    }
 }
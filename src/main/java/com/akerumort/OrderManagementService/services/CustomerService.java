@@ -1,16 +1,25 @@
 package com.akerumort.OrderManagementService.services;
 
+import com.akerumort.OrderManagementService.config.ReplicaRead;
 import com.akerumort.OrderManagementService.entities.Customer;
 import com.akerumort.OrderManagementService.repositories.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class CustomerService {
@@ -19,6 +28,11 @@ public class CustomerService {
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public List<Customer> getAllCustomers(int page, int size) {
         logger.info("Fetching customers with pagination");
         Pageable pageable = PageRequest.of(page, size);
@@ -26,18 +40,100 @@ public class CustomerService {
         return customerPage.getContent();
     }
 
+    // keyset page, limit + 1 rows are read so the caller can tell whether another page follows
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<Customer> getCustomersAfter(long lastId, int limit) {
+        return customerRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(limit + 1));
+    }
+
+    public List<Long> getAllCustomerIds() {
+        logger.info("Fetching all customer IDs");
+        return customerRepository.findAllIds();
+    }
+
     public Customer getCustomerById(Long id) {
-        logger.info("Fetched customer by ID: " + id);
-        return customerRepository.findById(id).orElse(null);
+        CachedCustomer cached = cache().get(id, CachedCustomer.class);
+        if (cached == null) {
+            logger.info("Fetched customer by ID: {}", id);
+            Customer customer = customerRepository.findById(id).orElse(null);
+            if (customer == null) {
+                return null;
+            }
+            cached = CachedCustomer.of(customer);
+            cache().put(id, cached);
+        }
+        return cached.toEntity();
+    }
+
+    public Optional<Long> getCustomerVersion(Long id) {
+        return customerRepository.findVersionById(id);
+    }
+
+    // the cached copy is only used while it is at the version just read from the database
+    public Customer getCustomerById(Long id, long version) {
+        CachedCustomer cached = cache().get(id, CachedCustomer.class);
+        if (cached != null && cached.version() == version) {
+            return cached.toEntity();
+        }
+        cache().evict(id);
+        return getCustomerById(id);
+    }
+
+    public List<Customer> getCustomersByIds(Collection<Long> ids) {
+        Cache cache = cache();
+        List<Customer> customers = new ArrayList<>(ids.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            CachedCustomer cached = cache.get(id, CachedCustomer.class);
+            if (cached != null) {
+                customers.add(cached.toEntity());
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            for (Customer customer : customerRepository.findAllById(missingIds)) {
+                cache.put(customer.getId(), CachedCustomer.of(customer));
+                customers.add(customer);
+            }
+        }
+        logger.info("Fetched {} customers by IDs, {} loaded from the database", ids.size(), missingIds.size());
+        return customers;
     }
 
     public Customer saveCustomer(Customer customer) {
-        logger.info("Saved customer: " + customer.getName());
-        return customerRepository.save(customer);
+        if (customer.getId() != null && customer.getVersion() == null) {
+            // PUT bodies carry no version, the update goes against the current row (last write wins)
+            customerRepository.findVersionById(customer.getId()).ifPresent(customer::setVersion);
+        }
+        logger.info("Saved customer: {}", customer.getName());
+        Customer savedCustomer = customerRepository.save(customer);
+        cache().evict(savedCustomer.getId());
+        return savedCustomer;
     }
 
+    @CacheEvict(value = "customers")
     public void deleteCustomer(Long id) {
         customerRepository.deleteById(id);
-        logger.info("Customer with ID " + id + " deleted successfully");
+        logger.info("Customer with ID {} deleted successfully", id);
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache("customers");
+    }
+
+    // the cache holds immutable copies and every caller gets its own detached entity, so a change made to
+    // a returned customer (or left behind by a rolled back transaction) never reaches the cache
+    private record CachedCustomer(Long id, String name, String email, Long version) {
+
+        static CachedCustomer of(Customer customer) {
+            return new CachedCustomer(customer.getId(), customer.getName(), customer.getEmail(), customer.getVersion());
+        }
+
+        Customer toEntity() {
+            return new Customer(id, name, email, version);
+        }
     }
 }
\ No newline at end of file
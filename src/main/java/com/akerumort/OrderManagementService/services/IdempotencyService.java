@@ -0,0 +1,162 @@
+package com.akerumort.OrderManagementService.services;
+
+import com.akerumort.OrderManagementService.dto.OrderDTO;
+import com.akerumort.OrderManagementService.entities.IdempotencyKey;
+import com.akerumort.OrderManagementService.exceptions.CustomValidationException;
+import com.akerumort.OrderManagementService.exceptions.IdempotencyKeyConflictException;
+import com.akerumort.OrderManagementService.repositories.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+// remembers the response of every order created with an Idempotency-Key: retries are answered from
+// the bounded in-memory map or the idempotency_key table without validating or inserting again
+@Service
+public class IdempotencyService {
+    private static final Logger logger = LogManager.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.idempotency.cache-size:10000}")
+    private long cacheSize;
+
+    @Value("${app.idempotency.retention:86400000}")
+    private long retention;
+
+    private Cache<String, IdempotencyKey> keys;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        keys = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMillis(retention))
+                .build();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Result createOnce(String key, Object request, Supplier<OrderDTO> create) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new CustomValidationException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(request);
+
+        IdempotencyKey stored = findStored(key);
+        if (stored != null && !isExpired(stored)) {
+            return replay(stored, requestHash);
+        }
+        // a row past the retention is no longer replayed, it is replaced by the new order's
+        boolean replaceExpired = stored != null;
+
+        try {
+            // the key row commits or rolls back together with the order
+            IdempotencyKey created = transactionTemplate.execute(status -> {
+                if (replaceExpired) {
+                    idempotencyKeyRepository.deleteExpired(key, expiredBefore());
+                }
+                OrderDTO orderDTO = create.get();
+                IdempotencyKey idempotencyKey = new IdempotencyKey(key, requestHash, orderDTO.getId(),
+                        toJson(orderDTO), new Timestamp(System.currentTimeMillis()));
+                idempotencyKeyRepository.insert(idempotencyKey);
+                return idempotencyKey;
+            });
+            keys.put(key, created);
+            return new Result(fromJson(created.getResponse()), false);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent request with the same key committed first, our order was rolled back
+            stored = idempotencyKeyRepository.findById(key).orElseThrow(() -> e);
+            keys.put(key, stored);
+            return replay(stored, requestHash);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval:3600000}")
+    public void removeExpiredKeys() {
+        Timestamp createdBefore = expiredBefore();
+        Integer removed = transactionTemplate.execute(status -> idempotencyKeyRepository.deleteCreatedBefore(createdBefore));
+        logger.info("Removed {} expired idempotency keys", removed);
+    }
+
+    private IdempotencyKey findStored(String key) {
+        IdempotencyKey stored = keys.getIfPresent(key);
+        if (stored == null) {
+            stored = idempotencyKeyRepository.findById(key).orElse(null);
+            if (stored != null) {
+                keys.put(key, stored);
+            }
+        }
+        return stored;
+    }
+
+    // the cleanup only runs every cleanup-interval and a row read from the table is cached anew, so the
+    // age is checked on every lookup
+    private boolean isExpired(IdempotencyKey stored) {
+        return stored.getCreatedAt().before(expiredBefore());
+    }
+
+    private Timestamp expiredBefore() {
+        return new Timestamp(System.currentTimeMillis() - retention);
+    }
+
+    private Result replay(IdempotencyKey stored, String requestHash) {
+        if (!stored.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyConflictException("Idempotency-Key was already used for a different request");
+        }
+        logger.info("Replayed order {} for Idempotency-Key {}", stored.getOrderId(), stored.getKey());
+        return new Result(fromJson(stored.getResponse()), true);
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to hash request", e);
+        }
+    }
+
+    private String toJson(OrderDTO orderDTO) {
+        try {
+            return objectMapper.writeValueAsString(orderDTO);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize order", e);
+        }
+    }
+
+    private OrderDTO fromJson(String response) {
+        try {
+            return objectMapper.readValue(response, OrderDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read stored order", e);
+        }
+    }
+
+    public record Result(OrderDTO order, boolean replayed) {
+    }
+}
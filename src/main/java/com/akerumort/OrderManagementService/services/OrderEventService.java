@@ -0,0 +1,97 @@
+package com.akerumort.OrderManagementService.services;
+
+import com.akerumort.OrderManagementService.config.ReplicaRead;
+import com.akerumort.OrderManagementService.dto.OrderChangeDTO;
+import com.akerumort.OrderManagementService.entities.Order;
+import com.akerumort.OrderManagementService.entities.OrderEvent;
+import com.akerumort.OrderManagementService.entities.Product;
+import com.akerumort.OrderManagementService.repositories.OrderEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// writes order changes to the outbox table; callers run in the transaction of the change itself,
+// so an event exists exactly when the change was committed
+@Service
+public class OrderEventService {
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public void recordCreated(Order order) {
+        orderEventRepository.save(toEvent(order, OrderEvent.Type.CREATED));
+    }
+
+    public void recordCreated(List<Order> orders) {
+        List<OrderEvent> events = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            events.add(toEvent(order, OrderEvent.Type.CREATED));
+        }
+        // ids come from the pooled order_event_seq, so the inserts are batched like the orders
+        orderEventRepository.saveAll(events);
+    }
+
+    public void recordUpdated(Order order) {
+        orderEventRepository.save(toEvent(order, OrderEvent.Type.UPDATED));
+    }
+
+    public void recordDeleted(Order order) {
+        orderEventRepository.save(toEvent(order, OrderEvent.Type.DELETED));
+    }
+
+    // published changes after the given feed position, oldest first
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<OrderChangeDTO> getChanges(long since, int limit) {
+        List<OrderChangeDTO> changes = new ArrayList<>();
+        for (OrderEvent event : orderEventRepository.findByPositionGreaterThanOrderByPositionAsc(since, Limit.of(limit))) {
+            changes.add(toDTO(event));
+        }
+        return changes;
+    }
+
+    public OrderChangeDTO toDTO(OrderEvent event) {
+        OrderChangeDTO changeDTO = new OrderChangeDTO();
+        changeDTO.setPosition(event.getPosition() == null ? 0 : event.getPosition());
+        changeDTO.setOrderId(event.getOrderId());
+        changeDTO.setType(event.getEventType().name());
+        changeDTO.setOrder(event.getPayload());
+        changeDTO.setCreatedAt(event.getCreatedAt());
+        return changeDTO;
+    }
+
+    private OrderEvent toEvent(Order order, OrderEvent.Type type) {
+        List<Long> productIds = new ArrayList<>(order.getProducts().size());
+        for (Product product : order.getProducts()) {
+            productIds.add(product.getId());
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", order.getId());
+        payload.put("customerId", order.getCustomer().getId());
+        payload.put("productIds", productIds);
+        payload.put("orderDate", order.getOrderDate());
+
+        OrderEvent event = new OrderEvent();
+        event.setOrderId(order.getId());
+        event.setEventType(type);
+        event.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize order " + order.getId(), e);
+        }
+        return event;
+    }
+}
@@ -1,36 +1,33 @@
 package com.akerumort.OrderManagementService.services;
 
+import com.akerumort.OrderManagementService.config.ReplicaRead;
+import com.akerumort.OrderManagementService.dto.OrderBatchResultDTO;
+import com.akerumort.OrderManagementService.dto.OrderDTO;
+import com.akerumort.OrderManagementService.dto.OrderField;
+import com.akerumort.OrderManagementService.dto.OrderFilterDTO;
 import com.akerumort.OrderManagementService.entities.Order;
 import com.akerumort.OrderManagementService.entities.Product;
-import com.akerumort.OrderManagementService.repositories.CustomerRepository;
 import com.akerumort.OrderManagementService.repositories.OrderRepository;
-import com.akerumort.OrderManagementService.repositories.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.sql.Timestamp;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
-import com.itextpdf.io.font.constants.StandardFonts;
-import com.itextpdf.kernel.font.PdfFontFactory;
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Paragraph;
-
 @Service
 public class OrderService {
     private static final Logger logger = LogManager.getLogger(OrderService.class);
@@ -39,34 +36,158 @@ public class OrderService {
     private OrderRepository orderRepository;
 
     @Autowired
-    private CustomerRepository customerRepository;
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private OrderEventService orderEventService;
 
     @Autowired
-    private ProductRepository productRepository;
+    private ReportCacheService reportCacheService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer singleValidationTimer;
+    private Timer batchValidationTimer;
+    private Counter createdCounter;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void registerMeters() {
+        singleValidationTimer = validationTimer("single");
+        batchValidationTimer = validationTimer("batch");
+        createdCounter = Counter.builder("orders.created")
+                .description("Orders saved")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("orders.rejected")
+                .description("Orders that failed validation")
+                .register(meterRegistry);
+    }
 
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public List<Order> getAllOrders(int page, int size)  {
         logger.info("Fetching orders with pagination");
         Pageable pageable = PageRequest.of(page, size);
         return orderRepository.findAll(pageable).getContent();
     }
 
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<OrderDTO> getOrderFields(int page, int size, Set<OrderField> fields) {
+        logger.info("Fetching orders with pagination, fields: {}", fields);
+        return orderRepository.findFieldsPage(page, size, fields);
+    }
+
+    // keyset page, limit + 1 rows are read so the caller can tell whether another page follows
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<Order> getOrdersAfter(long lastId, int limit) {
+        return orderRepository.findPageAfter(lastId, limit + 1);
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<Order> searchOrders(OrderFilterDTO filter, int limit) {
+        logger.info("Searching orders: customer {}, product {}, from {} to {}",
+                filter.getCustomerId(), filter.getProductId(), filter.getFrom(), filter.getTo());
+        return orderRepository.findByFilter(filter, limit + 1);
+    }
+
     public Order getOrderById(Long id) {
-        logger.info("Fetched order by ID: " + id);
+        logger.info("Fetched order by ID: {}", id);
         return orderRepository.findById(id).orElseThrow(() ->
                 new RuntimeException("Order not found"));
     }
 
+    // null when the order doesn't exist, answered from one aggregate query without loading the order
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public String getOrderETag(Long id) {
+        return orderRepository.findContentVersionById(id).orElse(null);
+    }
+
+    @Transactional
+    @Timed(value = "orders.save", histogram = true)
     public Order saveOrder(Order order) {
-        validateOrder(order);
+        try {
+            singleValidationTimer.record(() -> validateOrder(order));
+        } catch (IllegalArgumentException e) {
+            rejectedCounter.increment();
+            throw e;
+        }
         order.setOrderDate(new Timestamp(System.currentTimeMillis())); // current date and time
 
-        String productsInfo = order.getProducts().stream()
+        boolean update = false;
+        if (order.getId() != null) {
+            // an update replaces the previous order in the stats
+            Order previous = orderRepository.findById(order.getId()).orElse(null);
+            if (previous != null) {
+                order.setVersion(previous.getVersion()); // PUT is last write wins
+                orderStatsService.recordDeleted(previous);
+                update = true;
+            }
+        }
+
+        // the product list is only built when debug is on for this request
+        logger.info("Order created successfully for customer ID {} with {} products",
+                order.getCustomer().getId(), order.getProducts().size());
+        logger.debug("Order products: {}", () -> order.getProducts().stream()
                 .map(product -> "ID: " + product.getId())
-                .collect(Collectors.joining("; "));
+                .collect(Collectors.joining("; ")));
+        Order savedOrder = orderRepository.save(order);
+        orderStatsService.recordCreated(savedOrder);
+        if (update) {
+            orderEventService.recordUpdated(savedOrder);
+        } else {
+            orderEventService.recordCreated(savedOrder);
+        }
+        reportCacheService.invalidate();
+        createdCounter.increment();
+        return savedOrder;
+    }
+
+    @Transactional
+    @Timed(value = "orders.save.batch", histogram = true)
+    public List<OrderBatchResultDTO> saveOrders(List<Order> orders) {
+        Timer.Sample validationSample = Timer.start(meterRegistry);
+        Timestamp orderDate = new Timestamp(System.currentTimeMillis());
+        List<OrderBatchResultDTO> results = new ArrayList<>(orders.size());
+        List<Order> validOrders = new ArrayList<>();
+        List<OrderBatchResultDTO> validResults = new ArrayList<>();
+
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            OrderBatchResultDTO result = new OrderBatchResultDTO();
+            result.setIndex(i);
+            try {
+                validateOrder(order);
+                order.setOrderDate(orderDate);
+                validOrders.add(order);
+                validResults.add(result);
+            } catch (IllegalArgumentException e) {
+                result.setError(e.getMessage());
+            }
+            results.add(result);
+        }
+        validationSample.stop(batchValidationTimer);
+        rejectedCounter.increment(orders.size() - validOrders.size());
+
+        // ids come from the pooled sequence, so the order and order_product inserts go out as jdbc batches
+        orderRepository.saveAll(validOrders);
+        for (int i = 0; i < validOrders.size(); i++) {
+            validResults.get(i).setOrderId(validOrders.get(i).getId());
+            validResults.get(i).setCreated(true);
+            orderStatsService.recordCreated(validOrders.get(i));
+        }
+        if (!validOrders.isEmpty()) {
+            orderEventService.recordCreated(validOrders);
+            reportCacheService.invalidate();
+        }
+        createdCounter.increment(validOrders.size());
 
-        logger.info("Order created successfully for customer ID " + order.getCustomer().getId()
-                + " and products: " + productsInfo);
-        return orderRepository.save(order);
+        logger.info("Batch order creation finished: {} of {} orders created", validOrders.size(), orders.size());
+        return results;
     }
 
     private void validateOrder(Order order) {
@@ -80,147 +201,44 @@ public class OrderService {
             throw new IllegalArgumentException("At least one product is required");
         }
 
-        order.getProducts().forEach(product -> {
-            if (product.getId() == null) {
+        // the mapper already looked up customer and products, IDs it couldn't find are kept as id-only
+        // placeholders. Anything read from the database carries its version, so no second query is needed
+        Set<Long> missingProductIds = new LinkedHashSet<>();
+        for (Product product : order.getProducts()) {
+            if (product == null || product.getId() == null) {
                 logger.error("Product ID is required for creating an order. Order creation failed");
                 throw new IllegalArgumentException("Product ID is required");
             }
-
-            if (productRepository.findById(product.getId()).isEmpty()) {
-                logger.error("Product with ID " + product.getId() + " not found. Order creation failed");
-                throw new IllegalArgumentException("Product not found");
+            if (product.getVersion() == null) {
+                missingProductIds.add(product.getId());
             }
-        });
+        }
+        if (!missingProductIds.isEmpty()) {
+            logger.error("Products with IDs {} not found. Order creation failed", missingProductIds);
+            throw new IllegalArgumentException("Products not found: " + missingProductIds);
+        }
 
-        if (customerRepository.findById(order.getCustomer().getId()).isEmpty()) {
-            logger.error("Customer with ID " + order.getCustomer().getId() + " not found. Order creation failed");
+        if (order.getCustomer().getVersion() == null) {
+            logger.error("Customer with ID {} not found. Order creation failed", order.getCustomer().getId());
             throw new IllegalArgumentException("Customer not found");
         }
     }
 
+    @Transactional
     public void deleteOrder(Long id) {
+        orderRepository.findById(id).ifPresent(order -> {
+            orderStatsService.recordDeleted(order);
+            orderEventService.recordDeleted(order);
+        });
         orderRepository.deleteById(id);
-        logger.info("Order with ID " + id + " deleted successfully");
-    }
-
-    public String generateReport() {
-        StringBuilder report = new StringBuilder();
-        report.append("Order Report\n");
-        report.append("Generated at: ").append(Timestamp.valueOf(LocalDateTime.now())).append("\n\n");
-
-        Pageable pageable = PageRequest.of(0, 10);
-        Page<Order> orderPage;
-
-        do {
-            orderPage = orderRepository.findAll(pageable);
-            for (Order order : orderPage.getContent()) {
-                report.append("Order ID: ").append(order.getId()).append("\n");
-                report.append("Customer ID: ").append(order.getCustomer().getId()).append("\n");
-                report.append("Product IDs: ");
-                String productIds = order.getProducts().stream()
-                        .map(product -> String.valueOf(product.getId()))
-                        .collect(Collectors.joining(", "));
-                report.append(productIds).append("\n");
-                report.append("Product Names: ");
-                String productNames = order.getProducts().stream()
-                        .map(Product::getName)
-                        .collect(Collectors.joining(", "));
-                report.append(productNames).append("\n");
-                report.append("Order Date: ").append(order.getOrderDate()).append("\n\n");
-            }
-            pageable = orderPage.nextPageable();
-        } while (orderPage.hasNext());
-
-        return report.toString();
-    }
-
-    public byte[] generatePdfReport() throws Exception {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        PdfWriter writer = new PdfWriter(out);
-        PdfDocument pdfDoc = new PdfDocument(writer);
-        Document document = new Document(pdfDoc);
-
-        document.add(new Paragraph("Order Report")
-                .setFont(PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD))
-                .setFontSize(18));
-
-        document.add(new Paragraph("Generated at: " + Timestamp.valueOf(LocalDateTime.now()))
-                .setFont(PdfFontFactory.createFont(StandardFonts.HELVETICA))
-                .setFontSize(12));
-
-        Pageable pageable = PageRequest.of(0, 10);
-        Page<Order> orderPage;
-
-        do {
-            orderPage = orderRepository.findAll(pageable);
-            processOrderBatch(orderPage.getContent(), document);
-            pageable = orderPage.nextPageable();
-        } while (orderPage.hasNext());
-
-        document.close();
-        return out.toByteArray();
-    }
-
-    private void processOrderBatch(List<Order> orders, Document document) {
-        for (Order order : orders) {
-            document.add(new Paragraph("Order ID: " + order.getId()));
-            document.add(new Paragraph("Customer ID: " + order.getCustomer().getId()));
-            String productIds = order.getProducts().stream()
-                    .map(product -> String.valueOf(product.getId()))
-                    .collect(Collectors.joining(", "));
-            document.add(new Paragraph("Product IDs: " + productIds));
-            String productNames = order.getProducts().stream()
-                    .map(Product::getName)
-                    .collect(Collectors.joining(", "));
-            document.add(new Paragraph("Product Names: " + productNames));
-            document.add(new Paragraph("Order Date: " + order.getOrderDate()));
-            document.add(new Paragraph(" "));
-        }
-    }
-
-    public byte[] generateExcelReport() throws IOException {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Orders Report");
-
-        Row header = sheet.createRow(0);
-        header.createCell(0).setCellValue("Order ID");
-        header.createCell(1).setCellValue("Customer ID");
-        header.createCell(2).setCellValue("Product IDs");
-        header.createCell(3).setCellValue("Product Names");
-        header.createCell(4).setCellValue("Order Date");
-
-        Pageable pageable = PageRequest.of(0, 10);
-        Page<Order> orderPage;
-        int rowIdx = 1;
-
-        do {
-            orderPage = orderRepository.findAll(pageable);
-            rowIdx = processOrderBatch(orderPage.getContent(), sheet, rowIdx);
-            pageable = orderPage.nextPageable();
-        } while (orderPage.hasNext());
-
-        workbook.write(out);
-        workbook.close();
-        return out.toByteArray();
+        reportCacheService.invalidate();
+        logger.info("Order with ID {} deleted successfully", id);
     }
 
-    private int processOrderBatch(List<Order> orders, Sheet sheet, int rowIdx) {
-        for (Order order : orders) {
-            Row row = sheet.createRow(rowIdx++);
-            row.createCell(0).setCellValue(order.getId());
-            row.createCell(1).setCellValue(order.getCustomer().getId());
-            String productIds = order.getProducts().stream()
-                    .map(product -> String.valueOf(product.getId()))
-                    .collect(Collectors.joining(", "));
-            row.createCell(2).setCellValue(productIds);
-            String productNames = order.getProducts().stream()
-                    .map(Product::getName)
-                    .collect(Collectors.joining(", "));
-            row.createCell(3).setCellValue(productNames);
-            row.createCell(4).setCellValue(order.getOrderDate().toString());
-        }
-        return rowIdx;
+    private Timer validationTimer(String mode) {
+        return Timer.builder("orders.validation")
+                .description("Order validation time")
+                .tag("mode", mode)
+                .register(meterRegistry);
     }
-
 }
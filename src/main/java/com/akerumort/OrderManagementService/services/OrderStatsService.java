@@ -0,0 +1,221 @@
+package com.akerumort.OrderManagementService.services;
+
+import com.akerumort.OrderManagementService.dto.OrderStatsDTO;
+import com.akerumort.OrderManagementService.dto.OrderTotalsDTO;
+import com.akerumort.OrderManagementService.entities.Order;
+import com.akerumort.OrderManagementService.entities.Product;
+import com.akerumort.OrderManagementService.repositories.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// order counts and revenue kept in memory and updated on every order change, so reads are O(1);
+// a periodic rebuild from the database corrects drift (price changes, writes from other instances)
+@Service
+public class OrderStatsService {
+    private static final Logger logger = LogManager.getLogger(OrderStatsService.class);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // not read-only: on a lagging replica the snapshot could miss orders whose deltas were applied before
+    // the journal started
+    private TransactionTemplate snapshotTransaction;
+
+    private volatile Stats stats = new Stats();
+
+    // deltas committed while a rebuild reads the database, replayed on top of the rebuilt stats; the lock
+    // keeps a delta from landing on the old stats or the journal after the swap
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Queue<Consumer<Stats>> rebuildJournal;
+
+    @PostConstruct
+    public void init() {
+        snapshotTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public OrderStatsDTO getStats() {
+        Stats current = stats;
+        OrderStatsDTO statsDTO = new OrderStatsDTO();
+        statsDTO.setTotalOrders(current.total.orders.sum());
+        statsDTO.setTotalRevenue(toAmount(current.total.revenueCents.sum()));
+        return statsDTO;
+    }
+
+    public OrderTotalsDTO getCustomerTotals(Long customerId) {
+        return toDTO(customerId, stats.byCustomer.get(customerId));
+    }
+
+    public OrderTotalsDTO getProductTotals(Long productId) {
+        return toDTO(productId, stats.byProduct.get(productId));
+    }
+
+    public void recordCreated(Order order) {
+        record(order, 1);
+    }
+
+    public void recordDeleted(Order order) {
+        record(order, -1);
+    }
+
+    // the journal starts before the snapshot, so a change can only be counted twice, never lost
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.stats.rebuild-interval:3600000}")
+    public void rebuild() {
+        try {
+            rebuildJournal = new ConcurrentLinkedQueue<>();
+            Stats rebuilt = snapshotTransaction.execute(status -> readStats());
+
+            int replayed;
+            swapLock.writeLock().lock();
+            try {
+                Queue<Consumer<Stats>> journal = rebuildJournal;
+                replayed = journal.size();
+                journal.forEach(delta -> delta.accept(rebuilt));
+                rebuildJournal = null;
+                stats = rebuilt;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            logger.info("Order stats rebuilt: {} orders, {} changes during the rebuild replayed",
+                    rebuilt.total.orders.sum(), replayed);
+        } catch (Exception e) {
+            rebuildJournal = null;
+            logger.error("Failed to rebuild order stats: ", e);
+        }
+    }
+
+    // one snapshot for all three queries, so the journal is replayed against a single point in time
+    private Stats readStats() {
+        orderRepository.useRepeatableRead();
+        Stats rebuilt = new Stats();
+        for (Object[] row : orderRepository.countOrdersByCustomer()) {
+            long orders = (Long) row[1];
+            rebuilt.total.orders.add(orders);
+            rebuilt.customer((Long) row[0]).orders.add(orders);
+        }
+        for (Object[] row : orderRepository.sumRevenueByCustomer()) {
+            long revenueCents = toCents((BigDecimal) row[1]);
+            rebuilt.total.revenueCents.add(revenueCents);
+            rebuilt.customer((Long) row[0]).revenueCents.add(revenueCents);
+        }
+        for (Object[] row : orderRepository.countOrdersAndSumRevenueByProduct()) {
+            Totals totals = rebuilt.product((Long) row[0]);
+            totals.orders.add((Long) row[1]);
+            totals.revenueCents.add(toCents((BigDecimal) row[2]));
+        }
+        return rebuilt;
+    }
+
+    private void record(Order order, int sign) {
+        // the deltas are taken now, while the order is loaded, and applied once the transaction commits
+        Long customerId = order.getCustomer().getId();
+        List<Long> productIds = new ArrayList<>();
+        List<Long> productCents = new ArrayList<>();
+        long orderCents = 0;
+        for (Product product : order.getProducts()) {
+            long cents = toCents(product.getPrice());
+            productIds.add(product.getId());
+            productCents.add(cents);
+            orderCents += cents;
+        }
+        long revenueCents = orderCents;
+
+        Consumer<Stats> delta = target -> {
+            target.total.add(sign, revenueCents);
+            target.customer(customerId).add(sign, revenueCents);
+            for (int i = 0; i < productIds.size(); i++) {
+                target.product(productIds.get(i)).add(sign, productCents.get(i));
+            }
+        };
+        afterCommit(() -> apply(delta));
+    }
+
+    private void apply(Consumer<Stats> delta) {
+        swapLock.readLock().lock();
+        try {
+            delta.accept(stats);
+            Queue<Consumer<Stats>> journal = rebuildJournal;
+            if (journal != null) {
+                journal.add(delta);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private OrderTotalsDTO toDTO(Long id, Totals totals) {
+        OrderTotalsDTO totalsDTO = new OrderTotalsDTO();
+        totalsDTO.setId(id);
+        totalsDTO.setOrders(totals == null ? 0 : totals.orders.sum());
+        totalsDTO.setRevenue(toAmount(totals == null ? 0 : totals.revenueCents.sum()));
+        return totalsDTO;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static class Totals {
+        private final LongAdder orders = new LongAdder();
+        private final LongAdder revenueCents = new LongAdder();
+
+        private void add(int sign, long cents) {
+            orders.add(sign);
+            revenueCents.add(sign * cents);
+        }
+    }
+
+    private static class Stats {
+        private final Totals total = new Totals();
+        private final Map<Long, Totals> byCustomer = new ConcurrentHashMap<>();
+        private final Map<Long, Totals> byProduct = new ConcurrentHashMap<>();
+
+        private Totals customer(Long id) {
+            return byCustomer.computeIfAbsent(id, key -> new Totals());
+        }
+
+        private Totals product(Long id) {
+            return byProduct.computeIfAbsent(id, key -> new Totals());
+        }
+    }
+}
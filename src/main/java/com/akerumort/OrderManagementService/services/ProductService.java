@@ -1,15 +1,25 @@
 package com.akerumort.OrderManagementService.services;
 
+import com.akerumort.OrderManagementService.config.ReplicaRead;
 import com.akerumort.OrderManagementService.entities.Product;
 import com.akerumort.OrderManagementService.repositories.ProductRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class ProductService {
@@ -19,24 +29,117 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
     public List<Product> getAllProducts(int page, int size) {
         logger.info("Fetching products with pagination");
         Pageable pageable = PageRequest.of(page, size);
         return productRepository.findAll(pageable).getContent();
     }
 
+    // keyset page, limit + 1 rows are read so the caller can tell whether another page follows
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public List<Product> getProductsAfter(long lastId, int limit) {
+        return productRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(limit + 1));
+    }
+
+    public List<Long> getAllProductIds() {
+        logger.info("Fetching all product IDs");
+        return productRepository.findAllIds();
+    }
+
     public Product getProductById(Long id) {
-        logger.info("Fetched product by ID: " + id);
-        return productRepository.findById(id).orElse(null);
+        CachedProduct cached = cache().get(id, CachedProduct.class);
+        if (cached == null) {
+            logger.info("Fetched product by ID: {}", id);
+            Product product = productRepository.findById(id).orElse(null);
+            if (product == null) {
+                return null;
+            }
+            cached = CachedProduct.of(product);
+            cache().put(id, cached);
+        }
+        return cached.toEntity();
+    }
+
+    public Optional<Long> getProductVersion(Long id) {
+        return productRepository.findVersionById(id);
+    }
+
+    // the cached copy is only used while it is at the version just read from the database
+    public Product getProductById(Long id, long version) {
+        CachedProduct cached = cache().get(id, CachedProduct.class);
+        if (cached != null && cached.version() == version) {
+            return cached.toEntity();
+        }
+        cache().evict(id);
+        return getProductById(id);
+    }
+
+    public List<Product> getProductsByIds(Collection<Long> ids) {
+        Cache cache = cache();
+        List<Product> products = new ArrayList<>(ids.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            CachedProduct cached = cache.get(id, CachedProduct.class);
+            if (cached != null) {
+                products.add(cached.toEntity());
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            for (Product product : productRepository.findAllById(missingIds)) {
+                cache.put(product.getId(), CachedProduct.of(product));
+                products.add(product);
+            }
+        }
+        logger.info("Fetched {} products by IDs, {} loaded from the database", ids.size(), missingIds.size());
+        return products;
     }
 
     public Product saveProduct(Product product) {
-        logger.info("Saved product: " + product.getName());
-        return productRepository.save(product);
+        if (product.getId() != null && product.getVersion() == null) {
+            // PUT bodies carry no version, the update goes against the current row (last write wins)
+            productRepository.findVersionById(product.getId()).ifPresent(product::setVersion);
+        }
+        logger.info("Saved product: {}", product.getName());
+        Product savedProduct = productRepository.save(product);
+        cache().evict(savedProduct.getId());
+        reportCacheService.invalidate(); // reports list product names
+        return savedProduct;
     }
 
+    @CacheEvict(value = "products")
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
-        logger.info("Product with ID " + id + " deleted successfully");
+        reportCacheService.invalidate();
+        logger.info("Product with ID {} deleted successfully", id);
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache("products");
+    }
+
+    // the cache holds immutable copies and every caller gets its own detached entity, so a change made to
+    // a returned product (or left behind by a rolled back transaction) never reaches the cache
+    private record CachedProduct(Long id, String name, String description, BigDecimal price, Long version) {
+
+        static CachedProduct of(Product product) {
+            return new CachedProduct(product.getId(), product.getName(), product.getDescription(),
+                    product.getPrice(), product.getVersion());
+        }
+
+        Product toEntity() {
+            return new Product(id, name, description, price, version);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,340 @@
+package com.akerumort.OrderManagementService.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// keeps the last rendered report of every format on disk together with the data version it was
+// rendered at. Order and product changes bump the version after commit, until then every request is
+// answered from the same file. A missing version is streamed to the client while it is written to the
+// file, concurrent requests for it read the file behind that render instead of rendering again
+@Service
+public class ReportCacheService {
+    private static final Logger logger = LogManager.getLogger(ReportCacheService.class);
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.report.cache.directory:${java.io.tmpdir}/order-report-cache}")
+    private String directory;
+
+    // the start time keeps ETags handed out by a previous run from matching after a restart
+    private final String instanceId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final Map<ReportFormat, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<String, Render> renders = new ConcurrentHashMap<>();
+    private Path cacheDirectory;
+    private Counter hitCounter;
+    private Counter missCounter;
+
+    @PostConstruct
+    public void init() throws IOException {
+        cacheDirectory = Files.createDirectories(Paths.get(directory));
+        hitCounter = lookupCounter("hit");
+        missCounter = lookupCounter("miss");
+    }
+
+    // called inside the changing transaction, a render started before the commit keeps its old version
+    public void invalidate() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dataVersion.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dataVersion.incrementAndGet();
+            }
+        });
+    }
+
+    public String currentETag(ReportFormat format) {
+        return etag(format, dataVersion.get());
+    }
+
+    public void writeReport(ReportFormat format, OutputStream out) throws IOException {
+        long version = dataVersion.get();
+        Snapshot cached = snapshots.get(format);
+        if (cached != null && cached.version() == version) {
+            hitCounter.increment();
+            copySnapshot(cached, out);
+            return;
+        }
+
+        String etag = etag(format, version);
+        Path file = cacheDirectory.resolve("orders_report-" + etag + "." + format.getExtension());
+        // a file per attempt, so a request that loses the race below can't truncate the running render's
+        Render render = new Render(Files.createTempFile(cacheDirectory, file.getFileName().toString(), ".part"));
+        Render running = renders.putIfAbsent(etag, render);
+        if (running != null) {
+            deleteQuietly(render.partFile);
+            hitCounter.increment();
+            follow(running, format, out);
+            return;
+        }
+
+        try {
+            // the render for this version may have finished between the lookup above and putIfAbsent
+            cached = snapshots.get(format);
+            if (cached != null && cached.version() == version) {
+                deleteQuietly(render.partFile);
+                hitCounter.increment();
+                render.finish(cached);
+                copySnapshot(cached, out);
+                return;
+            }
+            missCounter.increment();
+            render(format, version, etag, file, render, out);
+        } catch (IOException | RuntimeException e) {
+            render.fail(e);
+            throw e;
+        } finally {
+            renders.remove(etag);
+        }
+    }
+
+    // the snapshot is in the cache once the client has it; a client that went away doesn't stop the
+    // render, requests following it still get the whole report
+    private void render(ReportFormat format, long version, String etag, Path file, Render render,
+                        OutputStream out) throws IOException {
+        TeeOutputStream tee;
+        try {
+            try (OutputStream partOut = Files.newOutputStream(render.partFile)) {
+                tee = new TeeOutputStream(partOut, out, render);
+                OutputStream buffered = new BufferedOutputStream(tee);
+                reportService.writeReport(format, buffered);
+                buffered.flush();
+            }
+            Files.move(render.partFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(render.partFile);
+            throw e;
+        }
+        logger.info("{} report cached at data version {}", format, version);
+        Snapshot snapshot = new Snapshot(format, version, etag, file);
+        store(snapshot);
+        render.finish(snapshot);
+        if (tee.clientFailure != null) {
+            throw tee.clientFailure;
+        }
+    }
+
+    // copies what the running render has written so far, then waits for more until it is done
+    private void follow(Render render, ReportFormat format, OutputStream out) throws IOException {
+        InputStream in;
+        try {
+            in = Files.newInputStream(render.partFile);
+        } catch (NoSuchFileException e) {
+            // already moved to its final name, or failed
+            copySnapshot(await(render.done), out);
+            return;
+        }
+        try (in) {
+            byte[] buffer = new byte[8192];
+            long copied = 0;
+            while (true) {
+                long written = render.awaitWritten(copied);
+                if (written == copied) {
+                    Snapshot snapshot = await(render.done);
+                    // nothing written means the render found a finished snapshot instead of writing one
+                    if (copied == 0) {
+                        copySnapshot(snapshot, out);
+                    }
+                    return;
+                }
+                while (copied < written) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, written - copied));
+                    if (read < 0) {
+                        throw new IOException("Cached " + format + " report ended before its render");
+                    }
+                    out.write(buffer, 0, read);
+                    copied += read;
+                }
+                out.flush();
+            }
+        }
+    }
+
+    // a replaced snapshot file may be deleted between lookup and open, nothing is written before the open
+    void copySnapshot(Snapshot snapshot, OutputStream out) throws IOException {
+        InputStream in;
+        try {
+            in = Files.newInputStream(snapshot.file());
+        } catch (NoSuchFileException e) {
+            writeReport(snapshot.format(), out);
+            return;
+        }
+        try (in) {
+            in.transferTo(out);
+        }
+    }
+
+    Snapshot cachedSnapshot(ReportFormat format) {
+        return snapshots.get(format);
+    }
+
+    private void store(Snapshot snapshot) {
+        // renders of different versions can finish out of order, the newest one stays
+        Snapshot[] replaced = new Snapshot[1];
+        snapshots.compute(snapshot.format(), (format, previous) -> {
+            if (previous != null && previous.version() > snapshot.version()) {
+                replaced[0] = snapshot;
+                return previous;
+            }
+            replaced[0] = previous;
+            return snapshot;
+        });
+        if (replaced[0] != null) {
+            deleteQuietly(replaced[0].file());
+        }
+    }
+
+    private Snapshot await(CompletableFuture<Snapshot> render) throws IOException {
+        try {
+            return render.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the report", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Report render failed", e.getCause());
+        }
+    }
+
+    private String etag(ReportFormat format, long version) {
+        return format.getExtension() + "-" + instanceId + "-" + version;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete cached report {}", file, e);
+        }
+    }
+
+    private Counter lookupCounter(String result) {
+        return Counter.builder("reports.cache")
+                .description("Report requests answered from a cached or in-flight render")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public record Snapshot(ReportFormat format, long version, String etag, Path file) {
+    }
+
+    // a render in progress: how much of its part file is written, and its outcome
+    private static class Render {
+        private final Path partFile;
+        private final CompletableFuture<Snapshot> done = new CompletableFuture<>();
+        private long written;
+
+        Render(Path partFile) {
+            this.partFile = partFile;
+        }
+
+        synchronized void wrote(int count) {
+            written += count;
+            notifyAll();
+        }
+
+        synchronized void finish(Snapshot snapshot) {
+            done.complete(snapshot);
+            notifyAll();
+        }
+
+        synchronized void fail(Throwable e) {
+            done.completeExceptionally(e);
+            notifyAll();
+        }
+
+        synchronized long awaitWritten(long copied) throws IOException {
+            try {
+                while (written == copied && !done.isDone()) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the report", e);
+            }
+            return written;
+        }
+    }
+
+    // the file first, so requests following the render aren't held back by a slow client
+    private static class TeeOutputStream extends OutputStream {
+        private final OutputStream file;
+        private final OutputStream client;
+        private final Render render;
+        private IOException clientFailure;
+
+        TeeOutputStream(OutputStream file, OutputStream client, Render render) {
+            this.file = file;
+            this.client = client;
+            this.render = render;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            file.write(b, off, len);
+            render.wrote(len);
+            if (clientFailure == null) {
+                try {
+                    client.write(b, off, len);
+                } catch (IOException e) {
+                    clientFailure = e;
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (clientFailure == null) {
+                try {
+                    client.flush();
+                } catch (IOException e) {
+                    clientFailure = e;
+                }
+            }
+        }
+    }
+}
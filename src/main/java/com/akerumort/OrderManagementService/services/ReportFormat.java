@@ -0,0 +1,25 @@
+package com.akerumort.OrderManagementService.services;
+
+public enum ReportFormat {
+    TEXT("txt", "text/plain;charset=UTF-8"),
+    CSV("csv", "text/csv;charset=UTF-8"),
+    NDJSON("ndjson", "application/x-ndjson"),
+    PDF("pdf", "application/pdf"),
+    EXCEL("xlsx", "application/octet-stream");
+
+    private final String extension;
+    private final String contentType;
+
+    ReportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
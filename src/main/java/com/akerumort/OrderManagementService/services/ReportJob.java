@@ -0,0 +1,31 @@
+package com.akerumort.OrderManagementService.services;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Getter
+@Setter
+public class ReportJob {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    private final String id;
+    private final ReportFormat format;
+    private final Path file;
+    private final Timestamp createdAt = new Timestamp(System.currentTimeMillis());
+    private final AtomicLong processedOrders = new AtomicLong();
+    private volatile Status status = Status.QUEUED;
+    private volatile long totalOrders;
+    private volatile String error;
+    private volatile Timestamp finishedAt;
+
+    public ReportJob(String id, ReportFormat format, Path file) {
+        this.id = id;
+        this.format = format;
+        this.file = file;
+    }
+}
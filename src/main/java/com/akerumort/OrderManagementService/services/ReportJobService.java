@@ -0,0 +1,155 @@
+package com.akerumort.OrderManagementService.services;
+
+import com.akerumort.OrderManagementService.dto.ReportJobDTO;
+import com.akerumort.OrderManagementService.exceptions.ReportJobRejectedException;
+import com.akerumort.OrderManagementService.exceptions.ResourceNotFoundException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// renders reports in the background to local files; the worker pool is kept small so exports
+// can only ever hold a few of the database connections
+@Service
+public class ReportJobService {
+    private static final Logger logger = LogManager.getLogger(ReportJobService.class);
+
+    @Autowired
+    private ReportService reportService;
+
+    @Value("${app.report.jobs.workers:2}")
+    private int workers;
+
+    @Value("${app.report.jobs.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${app.report.jobs.directory:${java.io.tmpdir}/order-reports}")
+    private String directory;
+
+    @Value("${app.report.jobs.retention:3600000}")
+    private long retention;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private Path jobsDirectory;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() throws IOException {
+        jobsDirectory = Files.createDirectories(Paths.get(directory));
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "report-job-" + threadNumber.incrementAndGet()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public ReportJob submit(ReportFormat format) {
+        String id = UUID.randomUUID().toString();
+        ReportJob job = new ReportJob(id, format, jobsDirectory.resolve(id + "." + format.getExtension()));
+        jobs.put(id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            logger.warn("Report job rejected, {} jobs are already queued", executor.getQueue().size());
+            throw new ReportJobRejectedException("Too many report jobs in progress, try again later");
+        }
+        logger.info("Report job {} queued, format: {}", id, format);
+        return job;
+    }
+
+    public ReportJob getJob(String id) {
+        ReportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Report job " + id + " not found");
+        }
+        return job;
+    }
+
+    public ReportJobDTO toDTO(ReportJob job) {
+        ReportJobDTO jobDTO = new ReportJobDTO();
+        jobDTO.setId(job.getId());
+        jobDTO.setFormat(job.getFormat().name());
+        jobDTO.setStatus(job.getStatus().name());
+        jobDTO.setProcessedOrders(job.getProcessedOrders().get());
+        jobDTO.setTotalOrders(job.getTotalOrders());
+        if (job.getStatus() == ReportJob.Status.DONE) {
+            jobDTO.setProgress(100);
+        } else if (job.getTotalOrders() > 0) {
+            jobDTO.setProgress((int) Math.min(99, job.getProcessedOrders().get() * 100 / job.getTotalOrders()));
+        }
+        jobDTO.setError(job.getError());
+        jobDTO.setCreatedAt(job.getCreatedAt());
+        jobDTO.setFinishedAt(job.getFinishedAt());
+        return jobDTO;
+    }
+
+    @Scheduled(fixedDelayString = "${app.report.jobs.cleanup-interval:60000}")
+    public void removeExpiredJobs() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> {
+            Timestamp finishedAt = job.getFinishedAt();
+            if (finishedAt == null || now - finishedAt.getTime() < retention) {
+                return false;
+            }
+            deleteQuietly(job.getFile());
+            logger.info("Report job {} expired and removed", job.getId());
+            return true;
+        });
+    }
+
+    private void run(ReportJob job) {
+        job.setStatus(ReportJob.Status.RUNNING);
+        Path partFile = job.getFile().resolveSibling(job.getFile().getFileName() + ".part");
+        try {
+            job.setTotalOrders(reportService.countOrders());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partFile))) {
+                reportService.writeReport(job.getFormat(), out, written -> job.getProcessedOrders().addAndGet(written));
+            }
+            // the download endpoint only ever sees complete files
+            Files.move(partFile, job.getFile(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.setStatus(ReportJob.Status.DONE);
+            logger.info("Report job {} finished, {} orders written", job.getId(), job.getProcessedOrders().get());
+        } catch (Exception e) {
+            deleteQuietly(partFile);
+            job.setError(e.getMessage());
+            job.setStatus(ReportJob.Status.FAILED);
+            logger.error("Report job {} failed", job.getId(), e);
+        } finally {
+            job.setFinishedAt(new Timestamp(System.currentTimeMillis()));
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete report file {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,535 @@
+package com.akerumort.OrderManagementService.services;
+
+import com.akerumort.OrderManagementService.config.ReplicaRead;
+import com.akerumort.OrderManagementService.config.ReplicaRoutingDataSource;
+import com.akerumort.OrderManagementService.entities.Order;
+import com.akerumort.OrderManagementService.entities.Product;
+import com.akerumort.OrderManagementService.repositories.OrderRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Paragraph;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
+// every format is written batch by batch while the orders are scanned, nothing holds the whole report.
+// With app.report.parallel.partitions > 1 large tables are split into id ranges rendered on their own threads
+@Service
+public class ReportService {
+    private static final Logger logger = LogManager.getLogger(ReportService.class);
+    private static final IntConsumer NO_PROGRESS = count -> { };
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.report.batch-size:500}")
+    private int reportBatchSize;
+
+    @Value("${app.report.excel.row-window:100}")
+    private int excelRowWindow;
+
+    @Value("${app.report.parallel.partitions:1}")
+    private int partitions;
+
+    @Value("${app.report.parallel.min-range-size:10000}")
+    private long minRangeSize;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // created once per format; a failed render registers its exception-tagged timer when it happens
+    private final Map<ReportFormat, Counter> writtenCounters = new EnumMap<>(ReportFormat.class);
+    private final Map<ReportFormat, Timer> renderTimers = new EnumMap<>(ReportFormat.class);
+
+    // null unless partitions > 1, every report is then rendered on the calling thread
+    private ThreadPoolExecutor partitionExecutor;
+    private TransactionTemplate rangeTransaction;
+    private int maxPartitions;
+
+    @PostConstruct
+    public void start() {
+        for (ReportFormat format : ReportFormat.values()) {
+            writtenCounters.put(format, Counter.builder("reports.orders")
+                    .description("Orders written to reports")
+                    .tag("format", format.name())
+                    .register(meterRegistry));
+            renderTimers.put(format, renderTimer(format, "none"));
+        }
+
+        // every range holds its own connection while it renders; a quarter of the pool keeps two
+        // parallel exports from starving the request threads
+        maxPartitions = Math.min(partitions, Math.max(1, connectionPoolSize / 4));
+        if (maxPartitions < 2) {
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        partitionExecutor = new ThreadPoolExecutor(maxPartitions, maxPartitions, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "report-range-" + threadNumber.incrementAndGet()));
+        rangeTransaction = new TransactionTemplate(transactionManager);
+        rangeTransaction.setReadOnly(true);
+        logger.info("Reports render in up to {} parallel id ranges", maxPartitions);
+    }
+
+    private Timer renderTimer(ReportFormat format, String exception) {
+        return Timer.builder("reports.render")
+                .description("Report rendering time, the order scan included")
+                .tag("format", format.name())
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (partitionExecutor != null) {
+            partitionExecutor.shutdownNow();
+        }
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public long countOrders() {
+        return orderRepository.count();
+    }
+
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public void writeReport(ReportFormat format, OutputStream out) throws IOException {
+        writeReport(format, out, NO_PROGRESS);
+    }
+
+    // progress receives the number of orders written after every batch, from several threads when
+    // the report is rendered in parallel ranges
+    @ReplicaRead
+    @Transactional(readOnly = true)
+    public void writeReport(ReportFormat format, OutputStream out, IntConsumer progress) throws IOException {
+        Counter writtenCounter = writtenCounters.get(format);
+        IntConsumer countingProgress = count -> {
+            writtenCounter.increment(count);
+            progress.accept(count);
+        };
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Timer renderTimer = renderTimers.get(format);
+        try {
+            switch (format) {
+                case TEXT, CSV, NDJSON -> writeLineReport(format, out, countingProgress);
+                case PDF -> writePdfReport(out, countingProgress);
+                case EXCEL -> writeExcelReport(out, countingProgress);
+            }
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            renderTimer = renderTimer(format, e.getClass().getSimpleName());
+            throw e;
+        } finally {
+            sample.stop(renderTimer);
+        }
+        logger.info("{} report written", format);
+    }
+
+    // text, CSV and NDJSON rows don't depend on each other: ranges are rendered to segment files in
+    // parallel and appended in id order, each one as soon as it and all before it are done
+    private void writeLineReport(ReportFormat format, OutputStream out, IntConsumer progress) throws IOException {
+        writeHeader(format, out);
+
+        List<IdRange> ranges = partition();
+        if (ranges == null) {
+            writeRows(format, out, this::scanOrders, progress);
+            return;
+        }
+
+        List<Path> segments = new ArrayList<>(ranges.size());
+        List<Future<?>> renders = new ArrayList<>(ranges.size());
+        try {
+            for (IdRange range : ranges) {
+                Path segment = Files.createTempFile("order-report-", "." + format.getExtension() + ".part");
+                segments.add(segment);
+                renders.add(submitRange(range, () -> {
+                    try (OutputStream segmentOut = new BufferedOutputStream(Files.newOutputStream(segment))) {
+                        writeRows(format, segmentOut, batchWriter -> scanOrders(range, batchWriter), progress);
+                    }
+                }));
+            }
+            for (int i = 0; i < ranges.size(); i++) {
+                await(renders.get(i));
+                Files.copy(segments.get(i), out);
+                out.flush();
+            }
+        } finally {
+            renders.forEach(render -> render.cancel(true));
+            segments.forEach(ReportService::deleteQuietly);
+        }
+    }
+
+    private void writeHeader(ReportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        switch (format) {
+            case TEXT -> {
+                writer.write("Order Report\n");
+                writer.write("Generated at: " + Timestamp.valueOf(LocalDateTime.now()) + "\n\n");
+            }
+            case CSV -> writer.write("order_id,customer_id,product_ids,product_names,order_date\n");
+            default -> {
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeRows(ReportFormat format, OutputStream out, OrderScan scan, IntConsumer progress) throws IOException {
+        switch (format) {
+            case TEXT -> writeTextRows(out, scan, progress);
+            case CSV -> writeCsvRows(out, scan, progress);
+            case NDJSON -> writeNdjsonRows(out, scan, progress);
+            default -> throw new IllegalArgumentException(format + " is not a line format");
+        }
+    }
+
+    private void writeTextRows(OutputStream out, OrderScan scan, IntConsumer progress) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        StringBuilder report = new StringBuilder(256);
+        scan.scan(orders -> {
+            for (Order order : orders) {
+                report.setLength(0);
+                report.append("Order ID: ").append(order.getId()).append("\n");
+                report.append("Customer ID: ").append(order.getCustomer().getId()).append("\n");
+                report.append("Product IDs: ").append(joinProductIds(order)).append("\n");
+                report.append("Product Names: ").append(joinProductNames(order)).append("\n");
+                report.append("Order Date: ").append(order.getOrderDate()).append("\n\n");
+                writer.append(report);
+            }
+            writer.flush();
+            progress.accept(orders.size());
+        });
+    }
+
+    private void writeCsvRows(OutputStream out, OrderScan scan, IntConsumer progress) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        StringBuilder line = new StringBuilder(256);
+        scan.scan(orders -> {
+            for (Order order : orders) {
+                line.setLength(0);
+                line.append(order.getId()).append(',');
+                line.append(order.getCustomer().getId()).append(',');
+                appendCsvValue(line, joinProductIds(order)).append(',');
+                appendCsvValue(line, joinProductNames(order)).append(',');
+                line.append(order.getOrderDate()).append('\n');
+                writer.append(line);
+            }
+            writer.flush();
+            progress.accept(orders.size());
+        });
+    }
+
+    private void writeNdjsonRows(OutputStream out, OrderScan scan, IntConsumer progress) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null); // lines are terminated explicitly below
+
+        scan.scan(orders -> {
+            for (Order order : orders) {
+                generator.writeStartObject();
+                generator.writeNumberField("orderId", order.getId());
+                generator.writeNumberField("customerId", order.getCustomer().getId());
+                generator.writeArrayFieldStart("productIds");
+                for (Product product : order.getProducts()) {
+                    generator.writeNumber(product.getId());
+                }
+                generator.writeEndArray();
+                generator.writeArrayFieldStart("productNames");
+                for (Product product : order.getProducts()) {
+                    generator.writeString(product.getName());
+                }
+                generator.writeEndArray();
+                generator.writeObjectField("orderDate", order.getOrderDate());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+            progress.accept(orders.size());
+        });
+        generator.close();
+    }
+
+    // pages flow through one document, so PDF is always rendered on the calling thread
+    private void writePdfReport(OutputStream out, IntConsumer progress) throws IOException {
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false); // the caller owns the response stream
+        PdfDocument pdfDoc = new PdfDocument(writer);
+        // immediate flush writes every finished page to the stream instead of keeping the layout tree
+        Document document = new Document(pdfDoc, pdfDoc.getDefaultPageSize(), true);
+
+        PdfFont boldFont = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
+        PdfFont regularFont = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+
+        document.add(new Paragraph("Order Report")
+                .setFont(boldFont)
+                .setFontSize(18));
+
+        document.add(new Paragraph("Generated at: " + Timestamp.valueOf(LocalDateTime.now()))
+                .setFont(regularFont)
+                .setFontSize(12));
+
+        scanOrders(orders -> {
+            processOrderBatch(orders, document);
+            writer.flush(); // finished pages reach the client per batch, not when the document closes
+            progress.accept(orders.size());
+        });
+
+        document.close();
+    }
+
+    private void processOrderBatch(List<Order> orders, Document document) {
+        for (Order order : orders) {
+            document.add(new Paragraph("Order ID: " + order.getId()));
+            document.add(new Paragraph("Customer ID: " + order.getCustomer().getId()));
+            document.add(new Paragraph("Product IDs: " + joinProductIds(order)));
+            document.add(new Paragraph("Product Names: " + joinProductNames(order)));
+            document.add(new Paragraph("Order Date: " + order.getOrderDate()));
+            document.add(new Paragraph(" "));
+        }
+    }
+
+    private void writeExcelReport(OutputStream out, IntConsumer progress) throws IOException {
+        // only the last excelRowWindow rows stay in memory, the rest is flushed to a temp file
+        SXSSFWorkbook workbook = new SXSSFWorkbook(excelRowWindow);
+        try {
+            List<IdRange> ranges = partition();
+            if (ranges == null) {
+                Sheet sheet = createExcelSheet(workbook, "Orders Report");
+                scanOrders(orders -> {
+                    processOrderBatch(orders, sheet);
+                    progress.accept(orders.size());
+                });
+            } else {
+                // one sheet per range: sheets are created here, each range then only writes rows of its own
+                // sheet, which streams to its own temp file (no shared strings table, no styles)
+                List<Future<?>> renders = new ArrayList<>(ranges.size());
+                try {
+                    for (int i = 0; i < ranges.size(); i++) {
+                        IdRange range = ranges.get(i);
+                        Sheet sheet = createExcelSheet(workbook, "Orders Report " + (i + 1));
+                        renders.add(submitRange(range, () -> scanOrders(range, orders -> {
+                            processOrderBatch(orders, sheet);
+                            progress.accept(orders.size());
+                        })));
+                    }
+                    for (Future<?> render : renders) {
+                        await(render);
+                    }
+                } finally {
+                    renders.forEach(render -> render.cancel(true));
+                }
+            }
+
+            workbook.write(out);
+        } finally {
+            workbook.dispose(); // removes the temp files backing the flushed rows
+            workbook.close();
+        }
+    }
+
+    private Sheet createExcelSheet(SXSSFWorkbook workbook, String name) {
+        Sheet sheet = workbook.createSheet(name);
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("Order ID");
+        header.createCell(1).setCellValue("Customer ID");
+        header.createCell(2).setCellValue("Product IDs");
+        header.createCell(3).setCellValue("Product Names");
+        header.createCell(4).setCellValue("Order Date");
+        return sheet;
+    }
+
+    private void processOrderBatch(List<Order> orders, Sheet sheet) {
+        int rowIdx = sheet.getLastRowNum() + 1;
+        for (Order order : orders) {
+            Row row = sheet.createRow(rowIdx++);
+            row.createCell(0).setCellValue(order.getId());
+            row.createCell(1).setCellValue(order.getCustomer().getId());
+            row.createCell(2).setCellValue(joinProductIds(order));
+            row.createCell(3).setCellValue(joinProductNames(order));
+            row.createCell(4).setCellValue(order.getOrderDate().toString());
+        }
+    }
+
+    private void scanOrders(OrderBatchWriter batchWriter) throws IOException {
+        scan(consumer -> orderRepository.scanAll(reportBatchSize, consumer), batchWriter);
+    }
+
+    private void scanOrders(IdRange range, OrderBatchWriter batchWriter) throws IOException {
+        scan(consumer -> orderRepository.scanRange(range.fromId(), range.toId(), reportBatchSize, consumer), batchWriter);
+    }
+
+    private static void scan(Consumer<Consumer<List<Order>>> scanner, OrderBatchWriter batchWriter) throws IOException {
+        try {
+            scanner.accept(orders -> {
+                try {
+                    batchWriter.write(orders);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // equal slices of the id space, null when the report is rendered on the calling thread: parallel
+    // rendering is off, or the table is too small for two ranges of minRangeSize ids
+    private List<IdRange> partition() {
+        if (partitionExecutor == null) {
+            return null;
+        }
+        long[] bounds = orderRepository.findIdBounds();
+        if (bounds == null) {
+            return null;
+        }
+        long span = bounds[1] - bounds[0] + 1;
+        int count = (int) Math.min(maxPartitions, span / minRangeSize);
+        if (count < 2) {
+            return null;
+        }
+
+        long width = (span + count - 1) / count;
+        List<IdRange> ranges = new ArrayList<>(count);
+        for (long fromId = bounds[0]; fromId <= bounds[1]; fromId += width) {
+            ranges.add(new IdRange(fromId, Math.min(fromId + width, bounds[1] + 1)));
+        }
+        logger.info("Rendering report in {} ranges of {} ids", ranges.size(), width);
+        return ranges;
+    }
+
+    // every range reads in its own read-only transaction, i.e. on its own connection; the partition thread
+    // doesn't inherit the caller's @ReplicaRead, so it is marked here
+    private Future<?> submitRange(IdRange range, RangeRender render) {
+        return partitionExecutor.submit(() -> {
+            boolean marked = ReplicaRoutingDataSource.markReplicaRead();
+            try {
+                rangeTransaction.executeWithoutResult(status -> {
+                    try {
+                        render.run();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                ReplicaRoutingDataSource.restoreReplicaRead(marked);
+            }
+            logger.debug("Report range {}..{} rendered", range.fromId(), range.toId());
+            return null;
+        });
+    }
+
+    private static void await(Future<?> render) throws IOException {
+        try {
+            render.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering the report", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Report range failed", e.getCause());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete report segment {}", file, e);
+        }
+    }
+
+    private static String joinProductIds(Order order) {
+        return order.getProducts().stream()
+                .map(product -> String.valueOf(product.getId()))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String joinProductNames(Order order) {
+        return order.getProducts().stream()
+                .map(Product::getName)
+                .collect(Collectors.joining(", "));
+    }
+
+    private static StringBuilder appendCsvValue(StringBuilder line, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private interface OrderBatchWriter {
+        void write(List<Order> orders) throws IOException;
+    }
+
+    private interface OrderScan {
+        void scan(OrderBatchWriter batchWriter) throws IOException;
+    }
+
+    private interface RangeRender {
+        void run() throws IOException;
+    }
+
+    // fromId inclusive, toId exclusive
+    private record IdRange(long fromId, long toId) {
+    }
+}
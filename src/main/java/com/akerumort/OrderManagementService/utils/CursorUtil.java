@@ -0,0 +1,75 @@
+package com.akerumort.OrderManagementService.utils;
+
+import com.akerumort.OrderManagementService.dto.CursorPageDTO;
+import com.akerumort.OrderManagementService.exceptions.CustomValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// cursors are opaque to clients, they only carry the sort key of the last row of the previous page
+public class CursorUtil {
+
+    public static String encode(Long lastId) {
+        return encodeKeys(lastId);
+    }
+
+    public static long decode(String cursor) {
+        long[] keys = decodeKeys(cursor, 1);
+        return keys == null ? 0L : keys[0];
+    }
+
+    public static String encodeKeys(long... keys) {
+        String payload = Arrays.stream(keys).mapToObj(String::valueOf).collect(Collectors.joining(":"));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // null when no cursor was given, i.e. the first page. Every key we encode (ids, epoch seconds, nanos)
+    // is non-negative, anything else was not handed out by us
+    public static long[] decodeKeys(String cursor, int keyCount) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != keyCount) {
+                throw new CustomValidationException("Invalid cursor");
+            }
+            long[] keys = new long[keyCount];
+            for (int i = 0; i < keyCount; i++) {
+                keys[i] = Long.parseLong(parts[i]);
+                if (keys[i] < 0) {
+                    throw new CustomValidationException("Invalid cursor");
+                }
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new CustomValidationException("Invalid cursor");
+        }
+    }
+
+    public static void validateLimit(int limit, int maxLimit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new CustomValidationException("Limit must be between 1 and " + maxLimit);
+        }
+    }
+
+    public static <E, D> CursorPageDTO<D> toPage(List<E> rows, int limit, Function<E, Long> idOf, Function<E, D> mapper) {
+        return toKeysetPage(rows, limit, row -> encode(idOf.apply(row)), mapper);
+    }
+
+    // rows are fetched with one extra element, its presence means there is a next page
+    public static <E, D> CursorPageDTO<D> toKeysetPage(List<E> rows, int limit, Function<E, String> cursorOf,
+                                                     Function<E, D> mapper) {
+        List<E> items = rows.size() > limit ? rows.subList(0, limit) : rows;
+        CursorPageDTO<D> page = new CursorPageDTO<>();
+        page.setItems(items.stream().map(mapper).toList());
+        if (rows.size() > limit) {
+            page.setNextCursor(cursorOf.apply(items.get(items.size() - 1)));
+        }
+        return page;
+    }
+}
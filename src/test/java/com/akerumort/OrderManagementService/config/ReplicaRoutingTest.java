@@ -0,0 +1,150 @@
+package com.akerumort.OrderManagementService.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// two independent servers: the "replica" is no standby, so nothing written to the primary shows up there
+// and a write routed to it is visible in its own tables
+@SpringBootTest(properties = {
+        "app.generator.enabled=false",
+        "app.outbox.sink=memory"
+})
+@AutoConfigureMockMvc
+public class ReplicaRoutingTest {
+
+    private static EmbeddedPostgres primary;
+    private static EmbeddedPostgres replica;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @DynamicPropertySource
+    public static void databases(DynamicPropertyRegistry registry) throws Exception {
+        primary = EmbeddedPostgres.start();
+        replica = EmbeddedPostgres.start();
+        // the application only migrates the primary
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(replica.getPostgresDatabase());
+        liquibase.setChangeLog("classpath:db/changelog/master-changelog.xml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+
+        registry.add("spring.datasource.url", () -> primary.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("app.datasource.replica.jdbc-url", () -> replica.getJdbcUrl("postgres", "postgres"));
+        registry.add("app.datasource.replica.username", () -> "postgres");
+        registry.add("app.datasource.replica.password", () -> "postgres");
+    }
+
+    @AfterAll
+    public static void stopDatabases() throws Exception {
+        primary.close();
+        replica.close();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        replicaLagMonitor.checkLag();
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+        // the mapper's lookups have to reach the database
+        cacheManager.getCache("products").clear();
+        cacheManager.getCache("customers").clear();
+    }
+
+    @Test
+    public void testCreateAfterReadOnlyLookupsWritesToPrimary() throws Exception {
+        long primaryOrders = countOrders(primaryDataSource);
+        long replicaOrders = countOrders(replicaDataSource);
+        double replicaRoutes = replicaRoutes();
+
+        // open-in-view keeps one EntityManager for the request: the customer and product lookups of the
+        // mapper run first as read-only repository transactions, the save follows in the same EntityManager
+        mockMvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\": 1, \"productIds\": [1, 2]}"))
+                .andExpect(status().isOk());
+
+        assertEquals(replicaRoutes, replicaRoutes(), "the write path used the replica");
+        assertEquals(primaryOrders + 1, countOrders(primaryDataSource));
+        assertEquals(replicaOrders, countOrders(replicaDataSource));
+    }
+
+    @Test
+    public void testUpdateAfterReadOnlyLookupsWritesToPrimary() throws Exception {
+        mockMvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\": 1, \"productIds\": [1]}"))
+                .andExpect(status().isOk());
+        long orderId = new JdbcTemplate(primaryDataSource).queryForObject("select max(id) from \"order\"", Long.class);
+        cacheManager.getCache("products").clear();
+
+        mockMvc.perform(put("/orders/" + orderId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\": 2, \"productIds\": [3]}"))
+                .andExpect(status().isOk());
+
+        assertEquals(2L, new JdbcTemplate(primaryDataSource).queryForObject(
+                "select customer_id from \"order\" where id = ?", Long.class, orderId));
+        assertEquals(0L, countOrders(replicaDataSource));
+    }
+
+    @Test
+    public void testMarkedReadsUseReplica() throws Exception {
+        double replicaRoutes = replicaRoutes();
+
+        mockMvc.perform(get("/orders/cursor"))
+                .andExpect(status().isOk());
+
+        assertTrue(replicaRoutes() > replicaRoutes, "the page wasn't read from the replica");
+    }
+
+    private long countOrders(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("select count(*) from \"order\"", Long.class);
+    }
+
+    private double replicaRoutes() {
+        return meterRegistry.get("datasource.routing").tag("route", "REPLICA").counter().count();
+    }
+}
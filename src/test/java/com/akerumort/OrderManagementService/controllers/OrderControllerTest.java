@@ -1,9 +1,12 @@
 package com.akerumort.OrderManagementService.controllers;
 
+import com.akerumort.OrderManagementService.dto.CustomerDTO;
 import com.akerumort.OrderManagementService.dto.OrderDTO;
+import com.akerumort.OrderManagementService.dto.OrderFieldsDTO;
 import com.akerumort.OrderManagementService.entities.Order;
 import com.akerumort.OrderManagementService.mappers.OrderMapper;
 import com.akerumort.OrderManagementService.services.OrderService;
+import com.akerumort.OrderManagementService.utils.CursorUtil;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,11 +14,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.Arrays;
 import java.util.Collections;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -57,20 +63,69 @@ public class OrderControllerTest {
 
         mockMvc.perform(get("/orders"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1L));
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(content().string(containsString("\"orderDate\":null")));
 
         verify(orderService, times(1)).getAllOrders(anyInt(), anyInt());
     }
 
+    @Test
+    public void testGetAllOrdersProjectionLeavesOutUnselectedFields() throws Exception {
+        OrderFieldsDTO projected = new OrderFieldsDTO();
+        projected.setId(1L);
+        CustomerDTO customer = new OrderFieldsDTO.Customer();
+        customer.setId(3L);
+        projected.setCustomer(customer);
+        when(orderService.getOrderFields(eq(0), eq(10), any())).thenReturn(Collections.singletonList(projected));
+
+        mockMvc.perform(get("/orders").param("fields", "id,customer.id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].customer.id").value(3L))
+                .andExpect(jsonPath("$[0].customer.name").doesNotExist())
+                .andExpect(jsonPath("$[0].orderDate").doesNotExist())
+                .andExpect(jsonPath("$[0].products").doesNotExist());
+    }
+
+    @Test
+    public void testGetOrdersByCursor() throws Exception {
+        ReflectionTestUtils.setField(orderController, "maxPageLimit", 1000);
+        Order nextOrder = new Order();
+        nextOrder.setId(2L);
+        when(orderService.getOrdersAfter(0L, 1)).thenReturn(Arrays.asList(order, nextOrder));
+        when(orderMapper.toDTO(order)).thenReturn(orderDTO);
+
+        mockMvc.perform(get("/orders/cursor").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.nextCursor").value(CursorUtil.encode(1L)));
+    }
+
     @Test
     public void testGetOrderById() throws Exception {
         when(orderService.getOrderById(anyLong())).thenReturn(order);
         when(orderMapper.toDTO(any(Order.class))).thenReturn(orderDTO);
 
+        when(orderService.getOrderETag(1L)).thenReturn("2-0-5");
+
         mockMvc.perform(get("/orders/1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2-0-5\""))
                 .andExpect(jsonPath("$.id").value(1L));
 
         verify(orderService, times(1)).getOrderById(anyLong());
     }
+
+    @Test
+    public void testGetOrderByIdNotModified() throws Exception {
+        when(orderService.getOrderETag(1L)).thenReturn("2-0-5");
+
+        mockMvc.perform(get("/orders/1").header("If-None-Match", "\"2-0-5\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(orderService, never()).getOrderById(anyLong());
+        verify(orderMapper, never()).toDTO(any(Order.class));
+    }
 }
@@ -0,0 +1,171 @@
+package com.akerumort.OrderManagementService.events;
+
+import com.akerumort.OrderManagementService.dto.OrderChangeDTO;
+import com.akerumort.OrderManagementService.entities.Order;
+import com.akerumort.OrderManagementService.entities.OrderEvent;
+import com.akerumort.OrderManagementService.repositories.CustomerRepository;
+import com.akerumort.OrderManagementService.repositories.OrderEventRepository;
+import com.akerumort.OrderManagementService.repositories.ProductRepository;
+import com.akerumort.OrderManagementService.services.OrderEventService;
+import com.akerumort.OrderManagementService.services.OrderService;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the scheduled relay doesn't run within the tests, they call it directly; small batches so a run
+// has to loop over several of them
+@SpringBootTest(properties = {
+        "app.generator.enabled=false",
+        "app.outbox.sink=memory",
+        "app.outbox.batch-size=3",
+        "app.outbox.relay-interval=3600000"
+})
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@AutoConfigureMockMvc
+public class OrderEventRelayTest {
+
+    @Autowired
+    private OrderEventRelay orderEventRelay;
+
+    @SpyBean
+    private InMemoryOrderEventSink orderEventSink;
+
+    @Autowired
+    private OrderEventService orderEventService;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        // events left by a previous test are published before the sink is emptied
+        orderEventRelay.relay();
+        orderEventSink.clear();
+    }
+
+    @Test
+    public void testRelayPublishesContiguousPositions() {
+        createOrders(7);
+        orderEventRelay.relay();
+
+        List<OrderEvent> published = orderEventSink.getEvents();
+        assertEquals(7, published.size());
+        assertContiguous(published);
+        assertTrue(orderEventRepository.findAll().stream().allMatch(event -> event.getPublishedAt() != null));
+    }
+
+    @Test
+    public void testPositionsContinueAfterPublishedEventsAreRemoved() {
+        createOrders(2);
+        orderEventRelay.relay();
+        long lastPosition = orderEventSink.getEvents().get(1).getPosition();
+
+        // what the retention cleanup leaves of a quiet feed
+        orderEventRepository.deleteAll();
+        orderEventSink.clear();
+        createOrders(1);
+        orderEventRelay.relay();
+
+        assertEquals(lastPosition + 1, orderEventSink.getEvents().get(0).getPosition());
+    }
+
+    @Test
+    public void testFailedBatchIsSentAgainWithItsPositions() throws Exception {
+        doThrow(new IOException("sink unavailable")).doCallRealMethod().when(orderEventSink).publish(anyList());
+        createOrders(2);
+        orderEventRelay.relay();
+        assertTrue(orderEventSink.getEvents().isEmpty());
+
+        Map<Long, Long> assigned = new HashMap<>();
+        orderEventRepository.findAll().forEach(event -> assigned.put(event.getId(), event.getPosition()));
+
+        // the failed batch goes out first, an event committed since follows it
+        createOrders(1);
+        orderEventRelay.relay();
+        orderEventRelay.relay();
+
+        List<OrderEvent> published = orderEventSink.getEvents();
+        assertEquals(3, published.size());
+        assertContiguous(published);
+        for (OrderEvent event : published.subList(0, 2)) {
+            assertEquals(assigned.get(event.getId()), event.getPosition());
+        }
+    }
+
+    @Test
+    public void testChangesArePagedBySinceAndLimit() throws Exception {
+        createOrders(5);
+        orderEventRelay.relay();
+        long first = orderEventSink.getEvents().get(0).getPosition();
+
+        assertEquals(List.of(first, first + 1), positions(orderEventService.getChanges(first - 1, 2)));
+        assertEquals(List.of(first + 2, first + 3, first + 4), positions(orderEventService.getChanges(first + 1, 10)));
+        assertTrue(orderEventService.getChanges(first + 4, 10).isEmpty());
+
+        mockMvc.perform(get("/orders/changes")
+                        .param("since", String.valueOf(first))
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].position").value(first + 1))
+                .andExpect(jsonPath("$[0].type").value("CREATED"))
+                .andExpect(jsonPath("$[1].position").value(first + 2));
+        mockMvc.perform(get("/orders/changes").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void createOrders(int count) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setCustomer(customerRepository.findById(1L).orElseThrow());
+            order.setProducts(new ArrayList<>(productRepository.findAllById(List.of(1L, 2L))));
+            orders.add(order);
+        }
+        orderService.saveOrders(orders);
+    }
+
+    private void assertContiguous(List<OrderEvent> events) {
+        for (int i = 1; i < events.size(); i++) {
+            assertEquals(events.get(i - 1).getPosition() + 1, events.get(i).getPosition());
+        }
+    }
+
+    private List<Long> positions(List<OrderChangeDTO> changes) {
+        return changes.stream().map(OrderChangeDTO::getPosition).collect(Collectors.toList());
+    }
+}
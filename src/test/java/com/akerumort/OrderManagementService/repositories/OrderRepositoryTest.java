@@ -0,0 +1,171 @@
+package com.akerumort.OrderManagementService.repositories;
+
+import com.akerumort.OrderManagementService.dto.OrderDTO;
+import com.akerumort.OrderManagementService.dto.OrderField;
+import com.akerumort.OrderManagementService.dto.OrderFilterDTO;
+import com.akerumort.OrderManagementService.entities.Customer;
+import com.akerumort.OrderManagementService.entities.Order;
+import com.akerumort.OrderManagementService.entities.Product;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+public class OrderRepositoryTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private Long orderId;
+    private Long customerId;
+    private long customerOrderCount;
+
+    @BeforeEach
+    public void setUp() {
+        List<Customer> customers = customerRepository.findAll();
+        List<Product> products = productRepository.findAll();
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Order order = new Order();
+            order.setCustomer(customers.get(i % customers.size()));
+            order.setProducts(new ArrayList<>(List.of(products.get(i % products.size()),
+                    products.get((i + 1) % products.size()))));
+            order.setOrderDate(new Timestamp(System.currentTimeMillis() - (i / 2) * 60_000L));
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+        orderId = orders.get(0).getId();
+        customerId = customers.get(0).getId();
+        customerOrderCount = orders.stream().filter(order -> order.getCustomer() == customers.get(0)).count();
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testFindAllLoadsPageWithFixedStatementCount() {
+        Page<Order> page = orderRepository.findAll(PageRequest.of(0, 20));
+        page.forEach(order -> {
+            order.getCustomer().getName();
+            order.getProducts().size();
+        });
+
+        assertEquals(20, page.getNumberOfElements());
+        // page query with the customer joined, count query, one batch for the products of the page
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindByIdLoadsOrderInOneStatement() {
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        order.getCustomer().getName();
+
+        assertEquals(2, order.getProducts().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindByFilterPagesCustomerOrdersByDate() {
+        OrderFilterDTO filter = new OrderFilterDTO();
+        filter.setCustomerId(customerId);
+        filter.setSort(OrderFilterDTO.SortField.ORDER_DATE);
+        filter.setDirection(Sort.Direction.DESC);
+
+        List<Order> firstPage = orderRepository.findByFilter(filter, 3);
+        Order last = firstPage.get(firstPage.size() - 1);
+        filter.setAfterOrderDate(last.getOrderDate());
+        filter.setAfterId(last.getId());
+        List<Order> rest = orderRepository.findByFilter(filter, 100);
+
+        List<Order> all = new ArrayList<>(firstPage);
+        all.addAll(rest);
+        assertEquals(customerOrderCount, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(customerId, all.get(i).getCustomer().getId());
+            if (i > 0) {
+                assertFalse(all.get(i).getOrderDate().after(all.get(i - 1).getOrderDate()));
+            }
+        }
+    }
+
+    @Test
+    public void testRepeatedProductIsKeptAndOrderFoundOnce() {
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        Product product = order.getProducts().get(0);
+        order.getProducts().add(product);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(3, orderRepository.findById(orderId).orElseThrow().getProducts().size());
+
+        OrderFilterDTO filter = new OrderFilterDTO();
+        filter.setProductId(product.getId());
+        filter.setSort(OrderFilterDTO.SortField.ID);
+        filter.setDirection(Sort.Direction.ASC);
+        List<Order> found = orderRepository.findByFilter(filter, 100);
+        assertEquals(1, found.stream().filter(candidate -> candidate.getId().equals(orderId)).count());
+    }
+
+    @Test
+    public void testContentVersionChangesWithProduct() {
+        String before = orderRepository.findContentVersionById(orderId).orElseThrow();
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        Product product = orderRepository.findById(orderId).orElseThrow().getProducts().get(0);
+        product.setName(product.getName() + " v2");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertNotEquals(before, orderRepository.findContentVersionById(orderId).orElseThrow());
+        assertTrue(orderRepository.findContentVersionById(-1L).isEmpty());
+    }
+
+    @Test
+    public void testFindFieldsPageSelectsOnlyRequestedFields() {
+        List<OrderDTO> page = orderRepository.findFieldsPage(0, 20,
+                EnumSet.of(OrderField.ID, OrderField.CUSTOMER_ID, OrderField.PRODUCT_IDS));
+
+        assertEquals(20, page.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        OrderDTO first = page.get(0);
+        assertEquals(orderId, first.getId());
+        assertEquals(customerId, first.getCustomer().getId());
+        assertNull(first.getCustomer().getName());
+        assertNull(first.getOrderDate());
+        assertEquals(2, first.getProducts().size());
+        assertNull(first.getProducts().get(0).getName());
+    }
+}
@@ -0,0 +1,61 @@
+package com.akerumort.OrderManagementService.repositories;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// the tables are tiny here, so seq scans are switched off: the planner then only falls back
+// to one when no index can serve the query
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+public class QueryPlanTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    public void setUp() {
+        entityManager.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+    }
+
+    @Test
+    public void testOrderKeysetScanUsesIndex() {
+        assertNoSeqScan("SELECT id FROM \"order\" WHERE id > 0 ORDER BY id LIMIT 500");
+    }
+
+    @Test
+    public void testOrderProductsLookupUsesIndex() {
+        assertNoSeqScan("SELECT product_id FROM order_product WHERE order_id IN (1, 2, 3)");
+    }
+
+    @Test
+    public void testProductOrdersLookupUsesIndex() {
+        assertNoSeqScan("SELECT order_id FROM order_product WHERE product_id = 1");
+    }
+
+    @Test
+    public void testCustomerOrdersLookupUsesIndex() {
+        assertNoSeqScan("SELECT id FROM \"order\" WHERE customer_id = 1 "
+                + "AND order_date >= now() - interval '7 days' ORDER BY order_date");
+    }
+
+    @Test
+    public void testOrderDateRangeUsesIndex() {
+        assertNoSeqScan("SELECT id FROM \"order\" WHERE order_date BETWEEN now() - interval '7 days' AND now()");
+    }
+
+    private void assertNoSeqScan(String sql) {
+        @SuppressWarnings("unchecked")
+        List<Object> rows = entityManager.createNativeQuery("EXPLAIN " + sql).getResultList();
+        String plan = rows.stream().map(String::valueOf).collect(Collectors.joining("\n"));
+        assertFalse(plan.contains("Seq Scan"), "Sequential scan in plan for: " + sql + "\n" + plan);
+    }
+}
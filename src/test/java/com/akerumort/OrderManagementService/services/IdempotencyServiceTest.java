@@ -0,0 +1,105 @@
+package com.akerumort.OrderManagementService.services;
+
+import com.akerumort.OrderManagementService.dto.OrderCreateDTO;
+import com.akerumort.OrderManagementService.dto.OrderDTO;
+import com.akerumort.OrderManagementService.entities.IdempotencyKey;
+import com.akerumort.OrderManagementService.exceptions.IdempotencyKeyConflictException;
+import com.akerumort.OrderManagementService.repositories.IdempotencyKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+
+    private OrderCreateDTO orderCreateDTO;
+    private AtomicInteger created;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(idempotencyService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(idempotencyService, "cacheSize", 100L);
+        ReflectionTestUtils.setField(idempotencyService, "retention", 60000L);
+        idempotencyService.init();
+
+        orderCreateDTO = new OrderCreateDTO();
+        orderCreateDTO.setCustomerId(1L);
+        orderCreateDTO.setProductIds(Arrays.asList(1L, 2L));
+        created = new AtomicInteger();
+    }
+
+    @Test
+    public void testRetryIsReplayedWithoutCreatingAgain() {
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.empty());
+
+        IdempotencyService.Result first = idempotencyService.createOnce("key-1", orderCreateDTO, this::createOrder);
+        IdempotencyService.Result retry = idempotencyService.createOnce("key-1", orderCreateDTO, this::createOrder);
+
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(10L, retry.order().getId());
+        assertEquals(1, created.get());
+        verify(idempotencyKeyRepository, times(1)).insert(any());
+    }
+
+    @Test
+    public void testKeyReusedForDifferentRequestIsRejected() {
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.empty());
+        idempotencyService.createOnce("key-1", orderCreateDTO, this::createOrder);
+
+        OrderCreateDTO otherOrder = new OrderCreateDTO();
+        otherOrder.setCustomerId(2L);
+        otherOrder.setProductIds(Arrays.asList(1L));
+
+        assertThrows(IdempotencyKeyConflictException.class,
+                () -> idempotencyService.createOnce("key-1", otherOrder, this::createOrder));
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void testExpiredKeyIsNotReplayed() {
+        IdempotencyKey expired = new IdempotencyKey("key-1", "hash of an older request", 5L, "{\"id\":5}",
+                new Timestamp(System.currentTimeMillis() - 120000L));
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.of(expired));
+
+        IdempotencyService.Result result = idempotencyService.createOnce("key-1", orderCreateDTO, this::createOrder);
+
+        assertFalse(result.replayed());
+        assertEquals(10L, result.order().getId());
+        assertEquals(1, created.get());
+        verify(idempotencyKeyRepository).deleteExpired(eq("key-1"), any());
+        verify(idempotencyKeyRepository).insert(any());
+    }
+
+    private OrderDTO createOrder() {
+        created.incrementAndGet();
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setId(10L);
+        return orderDTO;
+    }
+}
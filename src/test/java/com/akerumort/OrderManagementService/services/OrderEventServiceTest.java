@@ -0,0 +1,133 @@
+package com.akerumort.OrderManagementService.services;
+
+import com.akerumort.OrderManagementService.entities.Order;
+import com.akerumort.OrderManagementService.entities.OrderEvent;
+import com.akerumort.OrderManagementService.repositories.CustomerRepository;
+import com.akerumort.OrderManagementService.repositories.OrderEventRepository;
+import com.akerumort.OrderManagementService.repositories.OrderRepository;
+import com.akerumort.OrderManagementService.repositories.ProductRepository;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the outbox rows are written by the order changes themselves, so they commit and roll back with them
+@SpringBootTest(properties = {
+        "app.generator.enabled=false",
+        "app.outbox.sink=memory",
+        "app.outbox.relay-interval=3600000"
+})
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+public class OrderEventServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        orderEventRepository.deleteAll();
+    }
+
+    @Test
+    public void testSaveOrderRecordsCreatedEvent() {
+        Order saved = orderService.saveOrder(newOrder(1L, 1L, 2L));
+
+        List<OrderEvent> events = eventsOf(saved.getId());
+        assertEquals(List.of(OrderEvent.Type.CREATED), types(events));
+        assertTrue(events.get(0).getPayload().contains("\"customerId\":1"));
+        assertNull(events.get(0).getPosition()); // not published yet
+    }
+
+    @Test
+    public void testSaveOrderWithExistingIdRecordsUpdatedEvent() {
+        Order saved = orderService.saveOrder(newOrder(1L, 1L));
+        Order update = newOrder(2L, 3L);
+        update.setId(saved.getId());
+        orderService.saveOrder(update);
+
+        assertEquals(List.of(OrderEvent.Type.CREATED, OrderEvent.Type.UPDATED), types(eventsOf(saved.getId())));
+    }
+
+    @Test
+    public void testSaveOrdersRecordsOneEventPerCreatedOrder() {
+        orderService.saveOrders(List.of(newOrder(1L, 1L), newOrder(2L, 2L, 3L), newOrder(3L, 4L)));
+
+        List<OrderEvent> events = orderEventRepository.findAll();
+        assertEquals(3, events.size());
+        assertTrue(events.stream().allMatch(event -> event.getEventType() == OrderEvent.Type.CREATED));
+    }
+
+    @Test
+    public void testDeleteOrderRecordsDeletedEvent() {
+        Order saved = orderService.saveOrder(newOrder(1L, 1L));
+        orderService.deleteOrder(saved.getId());
+
+        assertEquals(List.of(OrderEvent.Type.CREATED, OrderEvent.Type.DELETED), types(eventsOf(saved.getId())));
+    }
+
+    @Test
+    public void testRolledBackChangesRecordNoEvents() {
+        Order existing = orderService.saveOrder(newOrder(1L, 1L));
+        long ordersBefore = orderRepository.count();
+        long eventsBefore = orderEventRepository.count();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            orderService.saveOrder(newOrder(2L, 2L));
+            orderService.saveOrders(List.of(newOrder(3L, 3L), newOrder(4L, 4L)));
+            orderService.deleteOrder(existing.getId());
+            // the events are there inside the transaction
+            assertEquals(eventsBefore + 4, orderEventRepository.count());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(ordersBefore, orderRepository.count());
+        assertEquals(eventsBefore, orderEventRepository.count());
+    }
+
+    private Order newOrder(long customerId, Long... productIds) {
+        Order order = new Order();
+        order.setCustomer(customerRepository.findById(customerId).orElseThrow());
+        order.setProducts(new ArrayList<>(productRepository.findAllById(List.of(productIds))));
+        return order;
+    }
+
+    private List<OrderEvent> eventsOf(Long orderId) {
+        return orderEventRepository.findAll().stream()
+                .filter(event -> event.getOrderId().equals(orderId))
+                .sorted((first, second) -> Long.compare(first.getId(), second.getId()))
+                .collect(Collectors.toList());
+    }
+
+    private List<OrderEvent.Type> types(List<OrderEvent> events) {
+        return events.stream().map(OrderEvent::getEventType).collect(Collectors.toList());
+    }
+}
@@ -1,11 +1,12 @@
 package com.akerumort.OrderManagementService.services;
 
+import com.akerumort.OrderManagementService.dto.OrderBatchResultDTO;
 import com.akerumort.OrderManagementService.entities.Customer;
 import com.akerumort.OrderManagementService.entities.Order;
 import com.akerumort.OrderManagementService.entities.Product;
-import com.akerumort.OrderManagementService.repositories.CustomerRepository;
 import com.akerumort.OrderManagementService.repositories.OrderRepository;
-import com.akerumort.OrderManagementService.repositories.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,8 +17,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,25 +36,35 @@ public class OrderServiceTest {
     private OrderRepository orderRepository;
 
     @Mock
-    private CustomerRepository customerRepository;
+    private OrderStatsService orderStatsService;
 
     @Mock
-    private ProductRepository productRepository;
+    private OrderEventService orderEventService;
+
+    @Mock
+    private ReportCacheService reportCacheService;
 
     @InjectMocks
     private OrderService orderService;
 
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private Order order;
     private Customer customer;
     private Product product;
 
     @BeforeEach
     public void setUp() {
+        ReflectionTestUtils.setField(orderService, "meterRegistry", meterRegistry);
+        orderService.registerMeters();
+
         customer = new Customer();
         customer.setId(1L);
+        customer.setVersion(0L);
 
         product = new Product();
         product.setId(1L);
+        product.setVersion(0L);
 
         order = new Order();
         order.setId(1L);
@@ -80,13 +94,69 @@ public class OrderServiceTest {
 
     @Test
     public void testSaveOrder() {
-        when(customerRepository.findById(anyLong())).thenReturn(Optional.of(customer));
-        when(productRepository.findById(anyLong())).thenReturn(Optional.of(product));
         when(orderRepository.save(any(Order.class))).thenReturn(order);
 
         Order savedOrder = orderService.saveOrder(order);
         assertNotNull(savedOrder);
         assertEquals(order.getId(), savedOrder.getId());
+        verify(orderStatsService, times(1)).recordCreated(order);
+        verify(orderEventService, times(1)).recordCreated(order);
+        verify(reportCacheService, times(1)).invalidate();
+    }
+
+    @Test
+    public void testSaveOrderReportsAllMissingProducts() {
+        Product missingProduct = new Product();
+        missingProduct.setId(2L);
+        Product anotherMissingProduct = new Product();
+        anotherMissingProduct.setId(3L);
+        // what the mapper leaves for IDs it couldn't find
+        order.setProducts(Arrays.asList(product, missingProduct, anotherMissingProduct));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> orderService.saveOrder(order));
+        assertEquals("Products not found: [2, 3]", exception.getMessage());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    public void testSaveOrderKeepsRepeatedProducts() {
+        // a product listed twice is ordered twice
+        order.setProducts(Arrays.asList(product, product));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+
+        orderService.saveOrder(order);
+        verify(orderRepository).save(argThat(saved -> saved.getProducts().size() == 2));
+    }
+
+    @Test
+    public void testSaveOrderRejectsUnresolvedCustomer() {
+        Customer missingCustomer = new Customer();
+        missingCustomer.setId(2L);
+        order.setCustomer(missingCustomer);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> orderService.saveOrder(order));
+        assertEquals("Customer not found", exception.getMessage());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    public void testSaveOrdersValidatesWithoutQueries() {
+        Order missing = new Order();
+        Product missingProduct = new Product();
+        missingProduct.setId(2L);
+        missing.setCustomer(customer);
+        missing.setProducts(Collections.singletonList(missingProduct));
+
+        List<OrderBatchResultDTO> results = orderService.saveOrders(Arrays.asList(order, missing));
+
+        assertTrue(results.get(0).isCreated());
+        assertEquals("Products not found: [2]", results.get(1).getError());
+        assertEquals(1.0, meterRegistry.get("orders.created").counter().count());
+        assertEquals(1.0, meterRegistry.get("orders.rejected").counter().count());
+        verify(orderRepository).saveAll(Collections.singletonList(order));
+        verifyNoMoreInteractions(orderRepository);
     }
 
     @Test
@@ -0,0 +1,122 @@
+package com.akerumort.OrderManagementService.services;
+
+import com.akerumort.OrderManagementService.entities.Customer;
+import com.akerumort.OrderManagementService.entities.Order;
+import com.akerumort.OrderManagementService.entities.Product;
+import com.akerumort.OrderManagementService.repositories.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderStatsServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private OrderStatsService orderStatsService;
+
+    private Order order;
+
+    @BeforeEach
+    public void setUp() {
+        orderStatsService.init();
+
+        Customer customer = new Customer();
+        customer.setId(1L);
+
+        Product product = new Product();
+        product.setId(1L);
+        product.setPrice(new BigDecimal("9.99"));
+
+        Product anotherProduct = new Product();
+        anotherProduct.setId(2L);
+        anotherProduct.setPrice(new BigDecimal("29.99"));
+
+        order = new Order();
+        order.setId(1L);
+        order.setCustomer(customer);
+        order.setProducts(Arrays.asList(product, anotherProduct));
+    }
+
+    @Test
+    public void testRecordCreatedAndDeleted() {
+        orderStatsService.recordCreated(order);
+
+        assertEquals(1, orderStatsService.getStats().getTotalOrders());
+        assertEquals(new BigDecimal("39.98"), orderStatsService.getStats().getTotalRevenue());
+        assertEquals(1, orderStatsService.getCustomerTotals(1L).getOrders());
+        assertEquals(new BigDecimal("29.99"), orderStatsService.getProductTotals(2L).getRevenue());
+
+        orderStatsService.recordDeleted(order);
+
+        assertEquals(0, orderStatsService.getStats().getTotalOrders());
+        assertEquals(new BigDecimal("0.00"), orderStatsService.getCustomerTotals(1L).getRevenue());
+    }
+
+    @Test
+    public void testRebuild() {
+        when(orderRepository.countOrdersByCustomer())
+                .thenReturn(Collections.singletonList(new Object[]{1L, 3L}));
+        when(orderRepository.sumRevenueByCustomer())
+                .thenReturn(Collections.singletonList(new Object[]{1L, new BigDecimal("59.97")}));
+        when(orderRepository.countOrdersAndSumRevenueByProduct())
+                .thenReturn(Collections.singletonList(new Object[]{2L, 3L, new BigDecimal("59.97")}));
+
+        orderStatsService.rebuild();
+
+        assertEquals(3, orderStatsService.getStats().getTotalOrders());
+        assertEquals(new BigDecimal("59.97"), orderStatsService.getStats().getTotalRevenue());
+        assertEquals(3, orderStatsService.getProductTotals(2L).getOrders());
+        assertEquals(0, orderStatsService.getProductTotals(1L).getOrders());
+    }
+
+    @Test
+    public void testChangeCommittedDuringRebuildIsKept() {
+        // the order is created after the rebuild read the customer counts, so they don't include it
+        when(orderRepository.countOrdersByCustomer())
+                .thenReturn(Collections.singletonList(new Object[]{1L, 3L}));
+        when(orderRepository.sumRevenueByCustomer()).thenAnswer(invocation -> {
+            orderStatsService.recordCreated(order);
+            return Collections.singletonList(new Object[]{1L, new BigDecimal("59.97")});
+        });
+        when(orderRepository.countOrdersAndSumRevenueByProduct())
+                .thenReturn(Collections.singletonList(new Object[]{2L, 3L, new BigDecimal("59.97")}));
+
+        orderStatsService.rebuild();
+
+        assertEquals(4, orderStatsService.getStats().getTotalOrders());
+        assertEquals(4, orderStatsService.getCustomerTotals(1L).getOrders());
+        assertEquals(4, orderStatsService.getProductTotals(2L).getOrders());
+        assertEquals(1, orderStatsService.getProductTotals(1L).getOrders());
+    }
+
+    @Test
+    public void testFailedSnapshotKeepsStats() {
+        orderStatsService.recordCreated(order);
+        when(transactionManager.getTransaction(any()))
+                .thenThrow(new CannotCreateTransactionException("no connection"));
+
+        orderStatsService.rebuild();
+        orderStatsService.recordCreated(order);
+
+        assertEquals(2, orderStatsService.getStats().getTotalOrders());
+    }
+}
@@ -0,0 +1,89 @@
+package com.akerumort.OrderManagementService.services;
+
+import com.akerumort.OrderManagementService.entities.Product;
+import com.akerumort.OrderManagementService.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ReportCacheService reportCacheService;
+
+    @InjectMocks
+    private ProductService productService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(productService, "cacheManager", new ConcurrentMapCacheManager("products"));
+    }
+
+    @Test
+    public void testChangesToReturnedProductDontReachCache() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product(0L, "Lamp")));
+
+        Product first = productService.getProductById(1L);
+        first.setName("Changed, never saved");
+        Product second = productService.getProductById(1L);
+
+        assertNotSame(first, second);
+        assertEquals("Lamp", second.getName());
+        assertEquals("Lamp", productService.getProductsByIds(List.of(1L)).get(0).getName());
+        verify(productRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void testCachedProductBehindDatabaseVersionIsReloaded() {
+        when(productRepository.findById(1L))
+                .thenReturn(Optional.of(product(0L, "Lamp")))
+                .thenReturn(Optional.of(product(1L, "Desk lamp")));
+        productService.getProductById(1L);
+
+        assertEquals("Lamp", productService.getProductById(1L, 0L).getName());
+        Product reloaded = productService.getProductById(1L, 1L);
+
+        assertEquals("Desk lamp", reloaded.getName());
+        assertEquals(1L, reloaded.getVersion());
+        verify(productRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    public void testSaveProductEvictsCachedCopy() {
+        when(productRepository.findById(1L))
+                .thenReturn(Optional.of(product(0L, "Lamp")))
+                .thenReturn(Optional.of(product(1L, "Desk lamp")));
+        productService.getProductById(1L);
+        Product update = product(null, "Desk lamp");
+        when(productRepository.findVersionById(1L)).thenReturn(Optional.of(0L));
+        when(productRepository.save(update)).thenReturn(product(1L, "Desk lamp"));
+
+        productService.saveProduct(update);
+
+        assertEquals("Desk lamp", productService.getProductById(1L).getName());
+        verify(reportCacheService).invalidate();
+    }
+
+    private Product product(Long version, String name) {
+        return new Product(1L, name, "Table lamp", BigDecimal.valueOf(1999, 2), version);
+    }
+}
@@ -0,0 +1,184 @@
+package com.akerumort.OrderManagementService.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class ReportCacheServiceTest {
+
+    @Mock
+    private ReportService reportService;
+
+    @InjectMocks
+    private ReportCacheService reportCacheService;
+
+    @TempDir
+    private Path cacheDirectory;
+
+    private final AtomicInteger renders = new AtomicInteger();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        ReflectionTestUtils.setField(reportCacheService, "directory", cacheDirectory.toString());
+        ReflectionTestUtils.setField(reportCacheService, "meterRegistry", meterRegistry);
+        reportCacheService.init();
+    }
+
+    @Test
+    public void testReportIsReusedUntilInvalidated() throws Exception {
+        stubRender(null);
+
+        assertEquals("render 1", write(ReportFormat.CSV));
+        ReportCacheService.Snapshot first = reportCacheService.cachedSnapshot(ReportFormat.CSV);
+        assertEquals(first.etag(), reportCacheService.currentETag(ReportFormat.CSV));
+        assertEquals("render 1", write(ReportFormat.CSV));
+        assertEquals("render 1", Files.readString(first.file()));
+
+        reportCacheService.invalidate();
+        assertNotEquals(first.etag(), reportCacheService.currentETag(ReportFormat.CSV));
+
+        assertEquals("render 2", write(ReportFormat.CSV));
+        assertFalse(Files.exists(first.file()));
+        verify(reportService, times(2)).writeReport(eq(ReportFormat.CSV), any(OutputStream.class));
+        assertEquals(1.0, lookups("hit"));
+        assertEquals(2.0, lookups("miss"));
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneRender() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        stubRender(release);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> write(ReportFormat.PDF));
+            Future<String> second = executor.submit(() -> write(ReportFormat.PDF));
+            Thread.sleep(200); // both requests are waiting for the render
+            release.countDown();
+
+            assertEquals("render 1", first.get(5, TimeUnit.SECONDS));
+            assertEquals("render 1", second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    public void testMissIsStreamedWhileItRenders() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("first batch\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            release.await(5, TimeUnit.SECONDS);
+            out.write("second batch\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(reportService).writeReport(any(ReportFormat.class), any(OutputStream.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            FirstBytesStream renderOut = new FirstBytesStream();
+            Future<?> render = executor.submit(() -> {
+                reportCacheService.writeReport(ReportFormat.CSV, renderOut);
+                return null;
+            });
+            assertTrue(renderOut.firstBytes.await(5, TimeUnit.SECONDS), "the miss waited for the whole render");
+
+            // a request arriving now reads the file behind the render
+            FirstBytesStream followOut = new FirstBytesStream();
+            Future<?> follow = executor.submit(() -> {
+                reportCacheService.writeReport(ReportFormat.CSV, followOut);
+                return null;
+            });
+            assertTrue(followOut.firstBytes.await(5, TimeUnit.SECONDS), "the follower waited for the whole render");
+
+            release.countDown();
+            render.get(5, TimeUnit.SECONDS);
+            follow.get(5, TimeUnit.SECONDS);
+            assertEquals("first batch\nsecond batch\n", renderOut.toString(StandardCharsets.UTF_8));
+            assertEquals("first batch\nsecond batch\n", followOut.toString(StandardCharsets.UTF_8));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("first batch\nsecond batch\n", write(ReportFormat.CSV));
+        verify(reportService, times(1)).writeReport(eq(ReportFormat.CSV), any(OutputStream.class));
+    }
+
+    @Test
+    public void testCopySnapshotFollowsReplacedFile() throws Exception {
+        stubRender(null);
+
+        write(ReportFormat.TEXT);
+        ReportCacheService.Snapshot stale = reportCacheService.cachedSnapshot(ReportFormat.TEXT);
+        reportCacheService.invalidate();
+        write(ReportFormat.TEXT);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportCacheService.copySnapshot(stale, out);
+        assertEquals("render 2", out.toString(StandardCharsets.UTF_8));
+        assertTrue(Files.notExists(stale.file()));
+    }
+
+    private void stubRender(CountDownLatch release) throws Exception {
+        doAnswer(invocation -> {
+            if (release != null) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            OutputStream out = invocation.getArgument(1);
+            out.write(("render " + renders.incrementAndGet()).getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(reportService).writeReport(any(ReportFormat.class), any(OutputStream.class));
+    }
+
+    private String write(ReportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportCacheService.writeReport(format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("reports.cache").tag("result", result).counter().count();
+    }
+
+    private static class FirstBytesStream extends ByteArrayOutputStream {
+        private final CountDownLatch firstBytes = new CountDownLatch(1);
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            super.write(b, off, len);
+            firstBytes.countDown();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.akerumort.OrderManagementService.services;
+
+import com.akerumort.OrderManagementService.entities.Customer;
+import com.akerumort.OrderManagementService.entities.Order;
+import com.akerumort.OrderManagementService.entities.Product;
+import com.akerumort.OrderManagementService.repositories.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReportServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ReportService reportService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Order order;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(reportService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(reportService, "reportBatchSize", 500);
+        ReflectionTestUtils.setField(reportService, "meterRegistry", meterRegistry);
+        reportService.start();
+
+        Customer customer = new Customer();
+        customer.setId(1L);
+
+        Product first = new Product();
+        first.setId(1L);
+        first.setName("Desk, oak");
+        Product second = new Product();
+        second.setId(2L);
+        second.setName("Lamp");
+
+        order = new Order();
+        order.setId(10L);
+        order.setCustomer(customer);
+        order.setProducts(Arrays.asList(first, second));
+        order.setOrderDate(Timestamp.valueOf("2024-01-01 10:00:00"));
+    }
+
+    @Test
+    public void testWriteCsvReport() throws Exception {
+        stubScanAll();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeReport(ReportFormat.CSV, out);
+
+        assertEquals("order_id,customer_id,product_ids,product_names,order_date\n"
+                        + "10,1,\"1, 2\",\"Desk, oak, Lamp\",2024-01-01 10:00:00.0\n",
+                out.toString(StandardCharsets.UTF_8));
+        assertEquals(1.0, meterRegistry.get("reports.orders").tag("format", "CSV").counter().count());
+        assertEquals(1, meterRegistry.get("reports.render").tag("format", "CSV").tag("exception", "none")
+                .timer().count());
+    }
+
+    @Test
+    public void testWriteNdjsonReport() throws Exception {
+        stubScanAll();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeReport(ReportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1, lines.length);
+        assertEquals(10L, new ObjectMapper().readTree(lines[0]).get("orderId").asLong());
+        assertEquals("Lamp", new ObjectMapper().readTree(lines[0]).get("productNames").get(1).asText());
+    }
+
+    @Test
+    public void testWritePdfReportFlushesEveryBatch() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int[] writtenAfterFirstBatch = new int[1];
+        doAnswer(invocation -> {
+            Consumer<List<Order>> batchConsumer = invocation.getArgument(1);
+            batchConsumer.accept(List.of(order));
+            writtenAfterFirstBatch[0] = out.size();
+            batchConsumer.accept(List.of(order));
+            return null;
+        }).when(orderRepository).scanAll(anyInt(), any());
+
+        reportService.writeReport(ReportFormat.PDF, out);
+
+        // the first batch reached the stream while the document was still open
+        assertTrue(writtenAfterFirstBatch[0] > 0);
+        assertTrue(out.size() > writtenAfterFirstBatch[0]);
+        assertTrue(out.toString(StandardCharsets.ISO_8859_1).startsWith("%PDF-"));
+    }
+
+    @Test
+    public void testWriteCsvReportInParallelRanges() throws Exception {
+        ReflectionTestUtils.setField(reportService, "partitions", 4);
+        ReflectionTestUtils.setField(reportService, "minRangeSize", 2L);
+        ReflectionTestUtils.setField(reportService, "connectionPoolSize", 16);
+        reportService.start();
+        when(orderRepository.findIdBounds()).thenReturn(new long[]{1L, 8L});
+        doAnswer(invocation -> {
+            long fromId = invocation.getArgument(0);
+            long toId = invocation.getArgument(1);
+            Consumer<List<Order>> batchConsumer = invocation.getArgument(3);
+            for (long id = fromId; id < toId; id++) {
+                Order rangeOrder = new Order();
+                rangeOrder.setId(id);
+                rangeOrder.setCustomer(order.getCustomer());
+                rangeOrder.setProducts(order.getProducts());
+                rangeOrder.setOrderDate(order.getOrderDate());
+                batchConsumer.accept(List.of(rangeOrder));
+            }
+            return null;
+        }).when(orderRepository).scanRange(anyLong(), anyLong(), anyInt(), any());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            reportService.writeReport(ReportFormat.CSV, out);
+        } finally {
+            reportService.stop();
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(9, lines.length);
+        for (int i = 1; i < lines.length; i++) {
+            assertTrue(lines[i].startsWith(i + ","));
+        }
+        verify(orderRepository, times(4)).scanRange(anyLong(), anyLong(), anyInt(), any());
+    }
+
+    private void stubScanAll() {
+        doAnswer(invocation -> {
+            Consumer<List<Order>> batchConsumer = invocation.getArgument(1);
+            batchConsumer.accept(List.of(order));
+            return null;
+        }).when(orderRepository).scanAll(anyInt(), any());
+    }
+}
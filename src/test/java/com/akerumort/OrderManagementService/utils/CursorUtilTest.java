@@ -0,0 +1,35 @@
+package com.akerumort.OrderManagementService.utils;
+
+import com.akerumort.OrderManagementService.exceptions.CustomValidationException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CursorUtilTest {
+
+    @Test
+    public void testKeysRoundTrip() {
+        assertEquals(42L, CursorUtil.decode(CursorUtil.encode(42L)));
+        assertArrayEquals(new long[]{1704103200L, 500L, 7L},
+                CursorUtil.decodeKeys(CursorUtil.encodeKeys(1704103200L, 500L, 7L), 3));
+        assertEquals(0L, CursorUtil.decode(null));
+        assertNull(CursorUtil.decodeKeys("", 1));
+    }
+
+    @Test
+    public void testNegativeKeysAreRejected() {
+        assertThrows(CustomValidationException.class, () -> CursorUtil.decode(CursorUtil.encodeKeys(-1L)));
+        assertThrows(CustomValidationException.class, () -> CursorUtil.decodeKeys(CursorUtil.encodeKeys(-1L), 1));
+        assertThrows(CustomValidationException.class,
+                () -> CursorUtil.decodeKeys(CursorUtil.encodeKeys(1704103200L, 500L, -7L), 3));
+    }
+
+    @Test
+    public void testMalformedCursorsAreRejected() {
+        assertThrows(CustomValidationException.class, () -> CursorUtil.decodeKeys("not base64!", 1));
+        assertThrows(CustomValidationException.class, () -> CursorUtil.decodeKeys(CursorUtil.encodeKeys(1L, 2L), 1));
+    }
+}